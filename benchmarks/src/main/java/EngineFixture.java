@@ -0,0 +1,135 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+// Engine Fixture - vendora.bench.Engine on top of EcommerceSystem, for the JMH
+// benchmarks. Change events are delivered inline since nothing listens to them.
+public class EngineFixture implements vendora.bench.Engine {
+    private EcommerceSystem system = new EcommerceSystem(Runnable::run);
+    private int users;
+    private int products;
+    private String[] sampleUsers = new String[0];
+    private String[] samplePasswords = new String[0];
+    private String[] sampleProducts = new String[0];
+
+    @Override
+    public void writeDataset(Path dir, int users, int products, int transactions) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(dir.resolve("users.txt"))) {
+            // loadData falls back to a default admin when there are no users
+            for (int i = 0; i < users; i++) {
+                w.write(new Customer("C" + i, "user" + i, "pw" + i).toFile());
+                w.newLine();
+            }
+        }
+        try (BufferedWriter w = Files.newBufferedWriter(dir.resolve("products.txt"))) {
+            Random r = new Random(products);
+            for (int i = 0; i < products; i++) {
+                w.write(new Product("P" + i, "Product " + i, 100 + r.nextInt(100_000), 1_000_000_000).toFile());
+                w.newLine();
+            }
+        }
+        try (BufferedWriter w = Files.newBufferedWriter(dir.resolve("transactions.txt"))) {
+            Random r = new Random(transactions);
+            for (int i = 0; i < transactions; i++) {
+                w.write("user" + r.nextInt(Math.max(1, users)) + "||" + Money.format(100 + r.nextInt(100_000))
+                        + "||2024-01-" + (10 + i % 20) + " 12:00:00");
+                w.newLine();
+            }
+        }
+        this.users = users;
+        this.products = products;
+    }
+
+    @Override
+    public void load(Path dir) {
+        EcommerceSystem loaded = new EcommerceSystem(Runnable::run);
+        loaded.setDataDirectory(dir.toFile());
+        loaded.loadData();
+        system = loaded;
+    }
+
+    @Override
+    public void save(Path dir) {
+        system.setDataDirectory(dir.toFile());
+        system.saveData();
+    }
+
+    @Override
+    public void sample(int count, long seed) {
+        Random r = new Random(seed);
+        sampleUsers = new String[count];
+        samplePasswords = new String[count];
+        sampleProducts = new String[count];
+        for (int i = 0; i < count; i++) {
+            int u = r.nextInt(Math.max(1, users));
+            sampleUsers[i] = "user" + u;
+            samplePasswords[i] = "pw" + u;
+            sampleProducts[i] = "P" + r.nextInt(Math.max(1, products));
+        }
+    }
+
+    @Override
+    public boolean login(int sample) {
+        return system.login(sampleUsers[sample], samplePasswords[sample]) != null;
+    }
+
+    @Override
+    public boolean register(String username) {
+        return system.register(username, "pw");
+    }
+
+    @Override
+    public boolean findProduct(int sample) {
+        return system.findProduct(sampleProducts[sample]) != null;
+    }
+
+    @Override
+    public boolean addToCart(int sample, int quantity) {
+        return system.addProductToCart(sampleProducts[sample], quantity);
+    }
+
+    @Override
+    public long cartTotal() {
+        return system.getCart().getTotalCents();
+    }
+
+    @Override
+    public boolean checkout(String idempotencyKey) {
+        return system.processPayment(idempotencyKey) != null;
+    }
+
+    @Override
+    public void clearCart() {
+        system.getCart().clear();
+    }
+
+    @Override
+    public int productCount() {
+        return system.getProducts().size();
+    }
+
+    @Override
+    public int userCount() {
+        return system.getUsers().size();
+    }
+
+    @Override
+    public int transactionCount() {
+        return system.getTransactions().size();
+    }
+
+    @Override
+    public int cartLines() {
+        return system.getCart().getItems().size();
+    }
+
+    @Override
+    public long catalogStock() {
+        long stock = 0;
+        for (Product p : system.getProducts())
+            stock += p.getStock();
+        return stock;
+    }
+}
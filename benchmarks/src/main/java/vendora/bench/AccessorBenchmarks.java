@@ -0,0 +1,76 @@
+package vendora.bench;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The catalog, user, ledger and cart getters over size records split as for
+// the persistence benchmarks. The getters return views, so gc.alloc.rate.norm
+// should stay flat as size grows.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessorBenchmarks {
+    @Param({ "1000", "100000", "1000000", "10000000" })
+    int size;
+
+    private Engine engine;
+    private Path dir;
+
+    @Setup
+    public void setUp() throws Exception {
+        engine = Engine.create();
+        dir = Datasets.createDirectory();
+        engine.writeDataset(dir, Math.max(1, size / 10), Math.max(1, size / 10), size - 2 * (size / 10));
+        engine.load(dir);
+        engine.sample(ProductBenchmarks.CART_ITEMS, 42);
+        engine.login(0);
+        for (int i = 0; i < ProductBenchmarks.CART_ITEMS; i++)
+            engine.addToCart(i, 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Datasets.delete(dir);
+    }
+
+    @Benchmark
+    public int getProducts() {
+        return engine.productCount();
+    }
+
+    @Benchmark
+    public int getUsers() {
+        return engine.userCount();
+    }
+
+    @Benchmark
+    public int getTransactions() {
+        return engine.transactionCount();
+    }
+
+    @Benchmark
+    public int getCartItems() {
+        return engine.cartLines();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long catalogIteration() {
+        return engine.catalogStock();
+    }
+}
@@ -0,0 +1,91 @@
+package vendora.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compare - checks a benchmark run against a baseline run, both CSV result files
+// as written by Run, and exits with status 1 if any score got worse by more than
+// the threshold (default 10%). Time and allocation (gc.alloc.rate.norm) scores
+// are worse when higher, throughput scores when lower; allocation changes under
+// 8 bytes per operation are ignored.
+//
+//   java -cp benchmarks.jar vendora.bench.Compare baseline.csv jmh-result.csv [percent]
+public class Compare {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: Compare <baseline.csv> <current.csv> [threshold percent]");
+            System.exit(2);
+        }
+        Map<String, String[]> baseline = read(Path.of(args[0]));
+        Map<String, String[]> current = read(Path.of(args[1]));
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        int regressions = 0;
+        System.out.printf("%-70s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, String[]> e : current.entrySet()) {
+            String[] before = baseline.get(e.getKey());
+            if (before == null)
+                continue;
+            double was = Double.parseDouble(before[4]);
+            double now = Double.parseDouble(e.getValue()[4]);
+            if (was == 0)
+                continue;
+            double change = (now - was) / was * 100;
+            boolean higherIsBetter = e.getValue()[1].equals("thrpt") && !e.getKey().contains("gc.");
+            boolean worse = higherIsBetter ? change < -threshold : change > threshold;
+            // A few bytes per operation either way is noise in the allocation figures
+            if (e.getKey().contains("gc.alloc.rate.norm") && Math.abs(now - was) < 8)
+                worse = false;
+            if (worse)
+                regressions++;
+            System.out.printf("%-70s %14.3f %14.3f %+8.1f%%%s%n", e.getKey(), was, now, change,
+                    worse ? "  REGRESSION" : "");
+        }
+        System.out.println(regressions == 0 ? "No regressions over " + threshold + "%"
+                : regressions + " regression(s) over " + threshold + "%");
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    // Rows by benchmark name and parameters. Only run time and allocation per
+    // operation are kept; the other profiler rows vary too much between runs.
+    private static Map<String, String[]> read(Path file) throws IOException {
+        Map<String, String[]> rows = new LinkedHashMap<>();
+        List<String> lines = Files.readAllLines(file);
+        if (lines.isEmpty())
+            return rows;
+        String[] header = split(lines.get(0));
+        for (String line : lines.subList(1, lines.size())) {
+            String[] row = split(line);
+            String name = row[0];
+            if (name.contains(":") && !name.endsWith("gc.alloc.rate.norm"))
+                continue;
+            StringBuilder key = new StringBuilder(name);
+            for (int i = 7; i < row.length && i < header.length; i++)
+                key.append(' ').append(header[i].replace("Param: ", "")).append('=').append(row[i]);
+            rows.put(key.toString(), row);
+        }
+        return rows;
+    }
+
+    private static String[] split(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"')
+                quoted = !quoted;
+            else if (c == ',' && !quoted) {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else
+                cell.append(c);
+        }
+        cells.add(cell.toString());
+        return cells.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,28 @@
+package vendora.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+// Datasets - temporary directories for the benchmark data files
+final class Datasets {
+    private Datasets() {
+    }
+
+    static Path createDirectory() throws IOException {
+        return Files.createTempDirectory("vendora-bench");
+    }
+
+    static void delete(Path dir) {
+        if (dir == null)
+            return;
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package vendora.bench;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// Engine Interface - the operations the benchmarks drive. The application lives
+// in the default package, which classes in named packages (JMH benchmarks
+// included) cannot refer to, so EngineFixture implements this interface from
+// inside the default package and the benchmarks load it by name.
+public interface Engine {
+    static Engine create() {
+        try {
+            return (Engine) Class.forName("EngineFixture").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("EngineFixture is not on the class path", e);
+        }
+    }
+
+    // Writes users.txt, products.txt and transactions.txt to dir. User i is
+    // "user<i>" with password "pw<i>", product i has id "P<i>" and stock enough
+    // that no benchmark runs out.
+    void writeDataset(Path dir, int users, int products, int transactions) throws IOException;
+
+    // Replaces the system with a new one loaded from dir
+    void load(Path dir);
+
+    void save(Path dir);
+
+    // Picks count random users and products (by seed) for the calls below to use,
+    // so the benchmarks do not build ids or names themselves
+    void sample(int count, long seed);
+
+    boolean login(int sample);
+
+    boolean register(String username);
+
+    boolean findProduct(int sample);
+
+    boolean addToCart(int sample, int quantity);
+
+    long cartTotal();
+
+    // Checks out the cart as the logged-in user
+    boolean checkout(String idempotencyKey);
+
+    void clearCart();
+
+    // Sizes read through the getters, which return views rather than copies
+    int productCount();
+
+    int userCount();
+
+    int transactionCount();
+
+    int cartLines();
+
+    // Total stock, walking the whole catalog view
+    long catalogStock();
+}
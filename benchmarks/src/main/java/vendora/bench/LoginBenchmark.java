@@ -0,0 +1,52 @@
+package vendora.bench;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Login against size registered users, picking random existing users
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoginBenchmark {
+    @Param({ "1000", "100000", "1000000", "10000000" })
+    int size;
+
+    private Engine engine;
+    private Path dir;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        engine = Engine.create();
+        dir = Datasets.createDirectory();
+        engine.writeDataset(dir, size, 10, 0);
+        engine.load(dir);
+        engine.sample(1024, 42);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Datasets.delete(dir);
+    }
+
+    @Benchmark
+    public boolean login() {
+        next = (next + 1) & 1023;
+        return engine.login(next);
+    }
+}
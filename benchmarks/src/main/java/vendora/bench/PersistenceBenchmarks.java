@@ -0,0 +1,60 @@
+package vendora.bench;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// loadData and saveData with size records in all: a tenth users, a tenth
+// products and the rest transactions
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PersistenceBenchmarks {
+    @Param({ "1000", "100000", "1000000", "10000000" })
+    int size;
+
+    private Engine engine;
+    private Path dir;
+    private Path out;
+
+    @Setup
+    public void setUp() throws Exception {
+        engine = Engine.create();
+        dir = Datasets.createDirectory();
+        out = Datasets.createDirectory();
+        engine.writeDataset(dir, Math.max(1, size / 10), Math.max(1, size / 10), size - 2 * (size / 10));
+        engine.load(dir);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Datasets.delete(dir);
+        Datasets.delete(out);
+    }
+
+    @Benchmark
+    public Engine loadData() {
+        engine.load(dir);
+        return engine;
+    }
+
+    @Benchmark
+    public Engine saveData() {
+        engine.save(out);
+        return engine;
+    }
+}
@@ -0,0 +1,89 @@
+package vendora.bench;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Catalog and cart operations against a catalog of size products. Each
+// iteration starts with a cart of CART_ITEMS random products.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductBenchmarks {
+    static final int CART_ITEMS = 100;
+
+    @Param({ "1000", "100000", "1000000", "10000000" })
+    int size;
+
+    private Engine engine;
+    private Path dir;
+    private int next;
+    private long checkouts;
+
+    @Setup
+    public void setUp() throws Exception {
+        engine = Engine.create();
+        dir = Datasets.createDirectory();
+        engine.writeDataset(dir, 10, size, 0);
+        engine.load(dir);
+        engine.sample(1024, 42);
+        engine.login(0);
+    }
+
+    @Setup(Level.Iteration)
+    public void fillCart() {
+        engine.clearCart();
+        for (int i = 0; i < CART_ITEMS; i++)
+            engine.addToCart(i, 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Datasets.delete(dir);
+    }
+
+    private int nextSample() {
+        next = (next + 1) & 1023;
+        return next;
+    }
+
+    @Benchmark
+    public boolean findProduct() {
+        return engine.findProduct(nextSample());
+    }
+
+    @Benchmark
+    public boolean addProductToCart() {
+        return engine.addToCart(nextSample(), 1);
+    }
+
+    @Benchmark
+    public long cartTotal() {
+        return engine.cartTotal();
+    }
+
+    // Three items in the cart, then checkout with a fresh idempotency key
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean processPayment() {
+        engine.addToCart(nextSample(), 1);
+        engine.addToCart(nextSample(), 2);
+        engine.addToCart(nextSample(), 1);
+        return engine.checkout(Long.toString(checkouts++));
+    }
+}
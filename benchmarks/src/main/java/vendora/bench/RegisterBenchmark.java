@@ -0,0 +1,63 @@
+package vendora.bench;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Registering new users when size are already registered. Every registration
+// grows the user list, so each measured batch of BATCH registrations starts
+// from a freshly loaded system.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, batchSize = RegisterBenchmark.BATCH)
+@Measurement(iterations = 5, batchSize = RegisterBenchmark.BATCH)
+@Fork(1)
+public class RegisterBenchmark {
+    static final int BATCH = 1000;
+
+    @Param({ "1000", "100000", "1000000", "10000000" })
+    int size;
+
+    private Engine engine;
+    private Path dir;
+    private final String[] names = new String[BATCH];
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        engine = Engine.create();
+        dir = Datasets.createDirectory();
+        engine.writeDataset(dir, size, 10, 0);
+        for (int i = 0; i < BATCH; i++)
+            names[i] = "newuser" + i;
+    }
+
+    @Setup(Level.Iteration)
+    public void reload() {
+        engine.load(dir);
+        next = 0;
+    }
+
+    @TearDown
+    public void tearDown() {
+        Datasets.delete(dir);
+    }
+
+    @Benchmark
+    public boolean register() {
+        return engine.register(names[next++]);
+    }
+}
@@ -0,0 +1,30 @@
+package vendora.bench;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Entry point of benchmarks.jar: the JMH command line, with allocation
+// profiling (-prof gc) and a CSV result file for Compare on by default.
+public class Run {
+    static final String DEFAULT_RESULT = "jmh-result.csv";
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams() || cmd.shouldListProfilers()
+                || cmd.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+        if (cmd.getProfilers().isEmpty())
+            options.addProfiler(GCProfiler.class);
+        if (!cmd.getResultFormat().hasValue() && !cmd.getResult().hasValue())
+            options.resultFormat(ResultFormatType.CSV).result(DEFAULT_RESULT);
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,72 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Append-Only List - persistent growable array for the transaction ledger.
+// Elements are never removed or replaced, so a snapshot only has to remember
+// the backing array and the size at the time it was taken; later appends
+// either write past that size or move to a fresh array, and never disturb it.
+class AppendOnlyList<E> {
+    private volatile Object[] elements;
+    private volatile int size;
+
+    public AppendOnlyList() {
+        elements = new Object[16];
+    }
+
+    public synchronized void add(E e) {
+        Object[] a = elements;
+        if (size == a.length) {
+            a = Arrays.copyOf(a, a.length + (a.length >> 1));
+            elements = a;
+        }
+        a[size] = e;
+        size = size + 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        int n = size;
+        if (index < 0 || index >= n)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + n);
+        return (E) elements[index];
+    }
+
+    // O(1) immutable view of everything appended so far
+    public List<E> snapshot() {
+        int n = size;
+        return new Snapshot<>(elements, n);
+    }
+
+    private static final class Snapshot<E> extends AbstractList<E> implements RandomAccess {
+        private final Object[] elements;
+        private final int size;
+
+        Snapshot(Object[] elements, int size) {
+            this.elements = elements;
+            this.size = size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            if (index < 0 || index >= size)
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            return (E) elements[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+// Background Image Class - a decoded background plus one copy pre-scaled to the
+// window size. The copy is made once per size with high-quality filtering, so
+// painting is a 1:1 blit instead of a full-resolution rescale.
+final class BackgroundImage {
+  private final BufferedImage source;
+  private volatile BufferedImage scaled;
+
+  private BackgroundImage(BufferedImage source) {
+    this.source = source;
+  }
+
+  // Decodes file, skipping source pixels that would not survive scaling down to
+  // the largest screen. Returns null if the file is missing or not an image. Slow;
+  // call off the EDT.
+  static BackgroundImage load(File file) throws IOException {
+    if (!file.exists())
+      return null;
+    try (ImageInputStream in = ImageIO.createImageInputStream(file)) {
+      Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+      if (!readers.hasNext())
+        return null;
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(in, true, true);
+        ImageReadParam param = reader.getDefaultReadParam();
+        Dimension screen = largestScreen();
+        if (screen != null) {
+          int step = Math.min(reader.getWidth(0) / screen.width, reader.getHeight(0) / screen.height);
+          if (step > 1)
+            param.setSourceSubsampling(step, step, 0, 0);
+        }
+        return new BackgroundImage(toIntRgb(reader.read(0, param)));
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  // The copy scaled to exactly w x h, or null if it has not been made yet
+  BufferedImage scaledTo(int w, int h) {
+    BufferedImage s = scaled;
+    return s != null && s.getWidth() == w && s.getHeight() == h ? s : null;
+  }
+
+  // The closest thing to hand while the exact size is being prepared
+  BufferedImage anySize() {
+    BufferedImage s = scaled;
+    return s != null ? s : source;
+  }
+
+  // Makes the w x h copy. Slow for large images; call off the EDT.
+  BufferedImage scale(int w, int h) {
+    BufferedImage s = scaledTo(w, h);
+    if (s == null) {
+      s = scaleHighQuality(source, w, h);
+      scaled = s;
+    }
+    return s;
+  }
+
+  // Interpolation only looks at a few neighbouring source pixels, so shrinking by
+  // more than half in one go drops detail; halve step by step down to the target
+  private static BufferedImage scaleHighQuality(BufferedImage src, int w, int h) {
+    BufferedImage img = src;
+    int cw = src.getWidth();
+    int ch = src.getHeight();
+    do {
+      cw = cw / 2 >= w ? cw / 2 : w;
+      ch = ch / 2 >= h ? ch / 2 : h;
+      BufferedImage next = new BufferedImage(cw, ch, BufferedImage.TYPE_INT_RGB);
+      Graphics2D g2 = next.createGraphics();
+      g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+      g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      g2.drawImage(img, 0, 0, cw, ch, null);
+      g2.dispose();
+      img = next;
+    } while (cw != w || ch != h);
+    return img;
+  }
+
+  private static BufferedImage toIntRgb(BufferedImage img) {
+    if (img.getType() == BufferedImage.TYPE_INT_RGB)
+      return img;
+    BufferedImage rgb = new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_INT_RGB);
+    Graphics2D g2 = rgb.createGraphics();
+    g2.drawImage(img, 0, 0, null);
+    g2.dispose();
+    return rgb;
+  }
+
+  // Size of the largest screen in device pixels, or null when there is no screen
+  private static Dimension largestScreen() {
+    if (GraphicsEnvironment.isHeadless())
+      return null;
+    int w = 1, h = 1;
+    for (var device : GraphicsEnvironment.getLocalGraphicsEnvironment().getScreenDevices()) {
+      Rectangle b = device.getDefaultConfiguration().getBounds();
+      // Scaled (high-DPI) screens report bounds in user space
+      double scale = device.getDefaultConfiguration().getDefaultTransform().getScaleX();
+      w = Math.max(w, (int) Math.ceil(b.width * scale));
+      h = Math.max(h, (int) Math.ceil(b.height * scale));
+    }
+    return new Dimension(w, h);
+  }
+}
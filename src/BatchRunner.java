@@ -0,0 +1,290 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Batch Runner - executes a command script against EcommerceSystem as fast as it
+// will go, with no GUI and no prompts, and reports the time taken per command
+// type. Meant for replaying recorded sessions to reproduce a slowdown and to
+// compare a fix against it.
+//
+//   java -jar vendora.jar --batch session.txt [--dir data] [--save]
+//
+// One command per line; '#' starts a comment and "double quotes" group words:
+//
+//   register alice secret          login alice secret       use alice
+//   add P1 2                       remove P1                checkout [key]
+//   logout                         search "lap pro"         browse price desc 20
+//   addproduct P9 "Desk Lamp" 19.99 40                      restock P9 10
+//   price P9 17.99                 removeproduct P9         removeuser alice
+//   history alice                  sales P9                 top last_hour
+//   save
+//
+// Every user logged in keeps their own cart, so sessions of several shoppers
+// can be interleaved; "use" switches between them. The script is streamed, so
+// its length is not limited by memory, and only executing a command is timed.
+// A command the system refuses (checkout of a sold-out item, a duplicate
+// registration) counts as failed; lines that cannot be run at all are errors
+// and make the exit status 1. With --save the changes are also appended to
+// the data directory's journal, as the application does; without it "save"
+// fails, since data files written behind the journal's back no longer match it.
+class BatchRunner {
+    enum Command {
+        REGISTER, LOGIN, USE, LOGOUT, ADD, REMOVE, CHECKOUT, SEARCH, BROWSE, ADDPRODUCT, RESTOCK, PRICE,
+        REMOVEPRODUCT, REMOVEUSER, HISTORY, SALES, TOP, SAVE
+    }
+
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    private final EcommerceSystem system;
+    private final boolean saving;
+    private final Map<Command, LatencyHistogram> timings = new EnumMap<>(Command.class);
+    private final long[] failed = new long[Command.values().length];
+    private final Map<String, Session> sessions = new HashMap<>();
+    private final List<String> errors = new ArrayList<>();
+    private long errorCount;
+    private Session current;
+
+    private static final class Session {
+        final User user;
+        final ShoppingCart cart;
+
+        Session(User user, ShoppingCart cart) {
+            this.user = user;
+            this.cart = cart;
+        }
+    }
+
+    BatchRunner(EcommerceSystem system, boolean saving) {
+        this.system = system;
+        this.saving = saving;
+        for (Command c : Command.values())
+            timings.put(c, new LatencyHistogram());
+    }
+
+    // Entry point for ECommerceApp --batch; returns the exit status
+    static int run(String[] args) {
+        File script = null;
+        File dir = null;
+        boolean save = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--batch":
+                    script = i + 1 < args.length ? new File(args[++i]) : null;
+                    break;
+                case "--dir":
+                    dir = i + 1 < args.length ? new File(args[++i]) : null;
+                    break;
+                case "--save":
+                    save = true;
+                    break;
+                default:
+                    System.out.println("Unknown option " + args[i]);
+                    return 2;
+            }
+        }
+        if (script == null) {
+            System.out.println("Usage: --batch <script> [--dir <data directory>] [--save]");
+            return 2;
+        }
+        EcommerceSystem system = new EcommerceSystem(Runnable::run);
+        if (dir != null)
+            system.setDataDirectory(dir);
+        long loadStart = System.nanoTime();
+        system.loadData();
+        double loadMillis = (System.nanoTime() - loadStart) / 1e6;
+        if (save)
+            system.openJournal();
+        BatchRunner runner = new BatchRunner(system, save);
+        long start = System.nanoTime();
+        long lines;
+        try {
+            lines = runner.execute(script);
+        } catch (IOException e) {
+            System.out.println("Cannot read " + script + ": " + e.getMessage());
+            return 2;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (save) {
+            system.saveData();
+            system.closeJournal();
+        }
+        System.out.printf("Loaded data in %.1f ms; ran %d script lines in %.3f s%n%n", loadMillis, lines, seconds);
+        runner.report(seconds);
+        return runner.errorCount == 0 ? 0 : 1;
+    }
+
+    // Runs every line of the script; returns the number of lines read
+    long execute(File script) throws IOException {
+        long lineNumber = 0;
+        try (BufferedReader in = new BufferedReader(new FileReader(script), 1 << 16)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                List<String> words = tokenize(line);
+                if (words.isEmpty())
+                    continue;
+                Command command = parse(words.get(0));
+                if (command == null) {
+                    error(lineNumber, "unknown command '" + words.get(0) + "'");
+                    continue;
+                }
+                try {
+                    long t0 = System.nanoTime();
+                    boolean ok = apply(command, words);
+                    timings.get(command).record(System.nanoTime() - t0);
+                    if (!ok)
+                        failed[command.ordinal()]++;
+                } catch (IndexOutOfBoundsException e) {
+                    error(lineNumber, line.trim() + ": missing arguments");
+                } catch (IllegalArgumentException e) {
+                    // A quantity, amount or sort key that does not parse
+                    error(lineNumber, line.trim() + ": " + e.getMessage());
+                }
+            }
+        }
+        return lineNumber;
+    }
+
+    private boolean apply(Command command, List<String> w) {
+        switch (command) {
+            case REGISTER:
+                return system.register(w.get(1), w.get(2));
+            case LOGIN: {
+                User user = system.authenticate(w.get(1), w.get(2));
+                if (user == null)
+                    return false;
+                current = sessions.computeIfAbsent(user.getUsername(), k -> new Session(user, system.newCart()));
+                return true;
+            }
+            case USE:
+                current = sessions.get(w.get(1));
+                return current != null;
+            case LOGOUT:
+                if (current == null)
+                    return false;
+                current.cart.clear();
+                sessions.remove(current.user.getUsername());
+                current = null;
+                return true;
+            case ADD: {
+                int qty = w.size() > 2 ? Integer.parseInt(w.get(2)) : 1;
+                return current != null && system.addProductToCart(current.cart, w.get(1), qty);
+            }
+            case REMOVE:
+                if (current == null || current.cart.getItem(w.get(1)) == null)
+                    return false;
+                current.cart.removeItem(w.get(1));
+                return true;
+            case CHECKOUT:
+                return current != null
+                        && system.checkout(current.user, current.cart, w.size() > 1 ? w.get(1) : null) != null;
+            case SEARCH:
+                return system.searchProducts(w.get(1), w.size() > 2 ? Integer.parseInt(w.get(2)) : 50) != null;
+            case BROWSE: {
+                ProductQuery.SortKey key = ProductQuery.SortKey.valueOf(w.get(1).toUpperCase());
+                boolean ascending = w.size() <= 2 || !w.get(2).equalsIgnoreCase("desc");
+                int pageSize = w.size() > 3 ? Integer.parseInt(w.get(3)) : ProductTableModel.PAGE_SIZE;
+                system.listProducts(new ProductQuery(key, ascending, pageSize));
+                return true;
+            }
+            case ADDPRODUCT:
+                return system.addProduct(w.get(1), w.get(2), Money.parse(w.get(3)), Integer.parseInt(w.get(4)));
+            case RESTOCK:
+                return system.restockProduct(w.get(1), Integer.parseInt(w.get(2)));
+            case PRICE:
+                return system.updateProductPrice(w.get(1), Money.parse(w.get(2)));
+            case REMOVEPRODUCT:
+                return system.removeProduct(w.get(1));
+            case REMOVEUSER:
+                return system.removeUser(w.get(1));
+            case HISTORY:
+                return !system.getOrderHistory(w.get(1)).isEmpty();
+            case SALES:
+                return system.getProductSales(w.get(1)).getOrders() > 0;
+            case TOP: {
+                BestSellers.Period period = w.size() > 1 ? BestSellers.Period.valueOf(w.get(1).toUpperCase())
+                        : BestSellers.Period.ALL_TIME;
+                return !system.getTopProducts(period, 10).isEmpty() | !system.getTopCustomers(period, 10).isEmpty();
+            }
+            case SAVE:
+                if (!saving)
+                    return false;
+                system.saveData();
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static Command parse(String word) {
+        try {
+            return Command.valueOf(word.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Whitespace separated words; "double quotes" keep spaces, '#' outside
+    // quotes ends the line
+    static List<String> tokenize(String line) {
+        List<String> words = new ArrayList<>(6);
+        StringBuilder word = new StringBuilder();
+        boolean quoted = false;
+        boolean inWord = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                inWord = true;
+            } else if (!quoted && c == '#') {
+                break;
+            } else if (!quoted && Character.isWhitespace(c)) {
+                if (inWord)
+                    words.add(word.toString());
+                word.setLength(0);
+                inWord = false;
+            } else {
+                word.append(c);
+                inWord = true;
+            }
+        }
+        if (inWord)
+            words.add(word.toString());
+        return words;
+    }
+
+    private void error(long line, String message) {
+        errorCount++;
+        if (errors.size() < MAX_REPORTED_ERRORS)
+            errors.add("line " + line + ": " + message);
+    }
+
+    private void report(double seconds) {
+        System.out.printf("%-14s %9s %7s %10s %9s %9s %9s %9s %9s%n", "command", "count", "failed", "total ms",
+                "mean us", "p50 us", "p99 us", "p99.9 us", "max us");
+        long total = 0;
+        for (Command c : Command.values()) {
+            LatencyHistogram h = timings.get(c);
+            if (h.count() == 0)
+                continue;
+            total += h.count();
+            System.out.printf("%-14s %9d %7d %10.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n", c.name().toLowerCase(),
+                    h.count(), failed[c.ordinal()], h.meanNanos() * h.count() / 1e6, h.meanNanos() / 1e3,
+                    h.percentile(0.50) / 1e3, h.percentile(0.99) / 1e3, h.percentile(0.999) / 1e3,
+                    h.maxNanos() / 1e3);
+        }
+        System.out.printf("%nCommands: %d (%.0f/s)%n", total, total / Math.max(seconds, 1e-9));
+        if (errorCount > 0) {
+            System.out.println(errorCount + " line(s) could not be run:");
+            errors.forEach(e -> System.out.println("  " + e));
+            if (errorCount > errors.size())
+                System.out.println("  ...");
+        }
+    }
+}
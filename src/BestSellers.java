@@ -0,0 +1,130 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// Best Sellers - the products selling the most units and the customers spending
+// the most, all time and over the last day and hour, kept up to date as orders
+// are recorded instead of scanned out of the ledger.
+//
+// Each is a Space Saving summary, so memory does not grow with the number of
+// products, customers or orders. The windows are rings of summaries, one per
+// time bucket (an hour for the day, five minutes for the hour); an order
+// updates only its own bucket and a bucket is cleared when the ring comes
+// round to it again, so a window ends on a bucket boundary. Asking for a
+// window merges its buckets; a merged count is at most the window's total /
+// BUCKET_CAPACITY too high, against total / CAPACITY all time.
+class BestSellers {
+    private static final int CAPACITY = 1024;
+    private static final int BUCKET_CAPACITY = 256;
+
+    enum Period {
+        ALL_TIME("All time", 0, 0),
+        LAST_DAY("Last 24 hours", TimeUnit.HOURS.toMillis(1), 24),
+        LAST_HOUR("Last hour", TimeUnit.MINUTES.toMillis(5), 12);
+
+        private final String label;
+        private final long bucketMillis;
+        private final int buckets;
+
+        Period(String label, long bucketMillis, int buckets) {
+            this.label = label;
+            this.bucketMillis = bucketMillis;
+            this.buckets = buckets;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private final LongSupplier clock;
+    private final SpaceSaving products = new SpaceSaving(CAPACITY);
+    private final SpaceSaving customers = new SpaceSaving(CAPACITY);
+    private final Window[] windows = new Window[Period.values().length];
+
+    // Window Class - the ring of buckets of one period
+    private static final class Window {
+        final Period period;
+        final SpaceSaving[] products;
+        final SpaceSaving[] customers;
+        // Bucket number (time / bucketMillis) each slot holds, -1 if none
+        final long[] bucket;
+
+        Window(Period period) {
+            this.period = period;
+            products = new SpaceSaving[period.buckets];
+            customers = new SpaceSaving[period.buckets];
+            bucket = new long[period.buckets];
+            for (int i = 0; i < period.buckets; i++) {
+                products[i] = new SpaceSaving(BUCKET_CAPACITY);
+                customers[i] = new SpaceSaving(BUCKET_CAPACITY);
+                bucket[i] = -1;
+            }
+        }
+
+        // Slot for the order's bucket, or -1 if it is older than the ring
+        int slot(long timeMillis) {
+            long b = timeMillis / period.bucketMillis;
+            int slot = (int) (b % period.buckets);
+            if (bucket[slot] > b)
+                return -1;
+            if (bucket[slot] < b) {
+                products[slot].clear();
+                customers[slot].clear();
+                bucket[slot] = b;
+            }
+            return slot;
+        }
+
+        SpaceSaving merge(SpaceSaving[] summaries, long nowMillis) {
+            long now = nowMillis / period.bucketMillis;
+            List<SpaceSaving> inWindow = new ArrayList<>(bucket.length);
+            for (int i = 0; i < bucket.length; i++)
+                if (bucket[i] > now - period.buckets && bucket[i] <= now)
+                    inWindow.add(summaries[i]);
+            return SpaceSaving.merge(inWindow, CAPACITY);
+        }
+    }
+
+    BestSellers() {
+        this(System::currentTimeMillis);
+    }
+
+    BestSellers(LongSupplier clock) {
+        this.clock = clock;
+        for (Period p : Period.values())
+            if (p.buckets > 0)
+                windows[p.ordinal()] = new Window(p);
+    }
+
+    // Products count the units of each line, customers the order total
+    synchronized void record(String username, long amountCents, long timeMillis, List<OrderLine> lines) {
+        customers.add(username, amountCents);
+        for (OrderLine line : lines)
+            products.add(line.getProductId(), line.getQuantity());
+        for (Window w : windows) {
+            if (w == null)
+                continue;
+            int slot = w.slot(timeMillis);
+            if (slot < 0)
+                continue;
+            w.customers[slot].add(username, amountCents);
+            for (OrderLine line : lines)
+                w.products[slot].add(line.getProductId(), line.getQuantity());
+        }
+    }
+
+    // Product ids by units sold, most first
+    synchronized List<SpaceSaving.Entry> topProducts(Period period, int n) {
+        Window w = windows[period.ordinal()];
+        return (w == null ? products : w.merge(w.products, clock.getAsLong())).top(n);
+    }
+
+    // Usernames by amount spent in cents, most first
+    synchronized List<SpaceSaving.Entry> topCustomers(Period period, int n) {
+        Window w = windows[period.ordinal()];
+        return (w == null ? customers : w.merge(w.customers, clock.getAsLong())).top(n);
+    }
+}
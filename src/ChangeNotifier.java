@@ -0,0 +1,98 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+// ChangeEvent Class - one change to the catalog, the user list or the ledger
+class ChangeEvent {
+    enum Type {
+        PRODUCT_ADDED, PRODUCT_REMOVED, STOCK_CHANGED, PRICE_CHANGED,
+        USER_REGISTERED, USER_REMOVED, TRANSACTION_RECORDED
+    }
+
+    private final Type type;
+    private final Object subject;
+
+    ChangeEvent(Type type, Object subject) {
+        this.type = type;
+        this.subject = subject;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    // The Product, User or Transaction that changed
+    public Object getSubject() {
+        return subject;
+    }
+
+    public Product getProduct() {
+        return (Product) subject;
+    }
+
+    public User getUser() {
+        return (User) subject;
+    }
+
+    public Transaction getTransaction() {
+        return (Transaction) subject;
+    }
+}
+
+// SystemListener Interface - receives changes in batches, in the order they happened
+interface SystemListener {
+    void systemChanged(List<ChangeEvent> events);
+}
+
+// ChangeNotifier Class - queues change events and hands them to the listeners
+// in batches on the delivery executor (the Swing EDT by default). Repeated
+// stock or price changes of the same product within one batch collapse into
+// the first one, since listeners re-read the product anyway.
+class ChangeNotifier {
+    private final CopyOnWriteArrayList<SystemListener> listeners = new CopyOnWriteArrayList<>();
+    private final Executor delivery;
+    private LinkedHashMap<Object, ChangeEvent> pending = new LinkedHashMap<>();
+    private boolean scheduled;
+    private long sequence;
+
+    ChangeNotifier(Executor delivery) {
+        this.delivery = delivery;
+    }
+
+    void addListener(SystemListener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(SystemListener listener) {
+        listeners.remove(listener);
+    }
+
+    void publish(ChangeEvent.Type type, Object subject) {
+        if (listeners.isEmpty())
+            return;
+        boolean schedule;
+        synchronized (this) {
+            Object key = type == ChangeEvent.Type.STOCK_CHANGED || type == ChangeEvent.Type.PRICE_CHANGED
+                    ? List.of(type, subject)
+                    : sequence++;
+            pending.putIfAbsent(key, new ChangeEvent(type, subject));
+            schedule = !scheduled;
+            scheduled = true;
+        }
+        if (schedule)
+            delivery.execute(this::drain);
+    }
+
+    private void drain() {
+        List<ChangeEvent> batch;
+        synchronized (this) {
+            batch = new ArrayList<>(pending.values());
+            pending = new LinkedHashMap<>();
+            scheduled = false;
+        }
+        for (SystemListener l : listeners)
+            l.systemChanged(batch);
+    }
+}
@@ -0,0 +1,372 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Dataset Generator - writes users.txt, products.txt and transactions.txt in the
+// formats loadData reads, for startup and reporting tests at any scale. Output
+// is a pure function of the options and the seed, and is streamed: nothing but
+// the current line is held in memory, so row counts are limited by disk only.
+//
+//   java -cp bin DatasetGenerator --dir data --users 1000000 --products 100000
+//        --transactions 100000000 --seed 42
+//
+// Buyers and the products they buy follow Zipf distributions (a few customers
+// and best-sellers account for most orders), prices are log-normal around
+// $25, and timestamps increase through the period with a daily rhythm.
+class DatasetGenerator {
+    private static final String[] FIRST = { "ali", "sara", "omar", "hina", "bilal", "ayesha", "usman", "fatima",
+            "hamza", "zainab", "james", "maria", "chen", "priya", "lucas", "emma", "yusuf", "noor", "leo", "mia" };
+    private static final String[] LAST = { "khan", "ahmed", "malik", "shah", "raza", "smith", "garcia", "wang",
+            "patel", "silva", "brown", "ali", "hussain", "lee", "kumar", "jones" };
+    private static final String[] ADJECTIVES = { "Classic", "Pro", "Ultra", "Mini", "Smart", "Eco", "Deluxe",
+            "Compact", "Wireless", "Premium", "Sport", "Travel", "Digital", "Organic", "Heavy-Duty", "Slim" };
+    private static final String[] NOUNS = { "Laptop", "Mouse", "Keyboard", "Monitor", "Headphones", "Charger",
+            "Backpack", "Water Bottle", "Desk Lamp", "Notebook", "Sneakers", "Jacket", "Blender", "Kettle",
+            "Phone Case", "Speaker", "Camera", "Watch", "Sunglasses", "Tea Set", "Yoga Mat", "Drill", "Router",
+            "Tablet" };
+    // Relative order rate per hour of day: quiet at night, busiest in the evening
+    private static final double[] HOURLY = { 0.2, 0.1, 0.1, 0.1, 0.1, 0.2, 0.4, 0.7, 0.9, 1.0, 1.1, 1.2, 1.3,
+            1.2, 1.1, 1.1, 1.2, 1.4, 1.7, 2.0, 2.1, 1.8, 1.2, 0.6 };
+
+    private final long users;
+    private final long products;
+    private final long transactions;
+    private final long seed;
+    private final double zipfExponent;
+    private final LocalDate start;
+    private final int days;
+    private final long userStep;
+    private final long productStep;
+
+    DatasetGenerator(long users, long products, long transactions, long seed, double zipfExponent,
+            LocalDate start, int days) {
+        if (users < 1 || products < 1 || transactions < 0 || days < 1)
+            throw new IllegalArgumentException("Need at least one user, one product and one day");
+        this.users = users;
+        this.products = products;
+        this.transactions = transactions;
+        this.seed = seed;
+        this.zipfExponent = zipfExponent;
+        this.start = start;
+        this.days = days;
+        this.userStep = coprimeStep(users);
+        this.productStep = coprimeStep(products);
+    }
+
+    public static void main(String[] args) throws IOException {
+        File dir = new File(".");
+        long users = 10_000, products = 1_000, transactions = 100_000, seed = 42;
+        double zipf = 1.1;
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        int days = 365;
+        if (args.length % 2 != 0) {
+            System.out.println("Usage: DatasetGenerator [--dir <directory>] [--users <n>] [--products <n>]"
+                    + " [--transactions <n>] [--seed <n>] [--zipf <exponent>] [--start <yyyy-mm-dd>] [--days <n>]");
+            System.exit(2);
+        }
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--dir":
+                    dir = new File(value);
+                    break;
+                case "--users":
+                    users = Long.parseLong(value);
+                    break;
+                case "--products":
+                    products = Long.parseLong(value);
+                    break;
+                case "--transactions":
+                    transactions = Long.parseLong(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--zipf":
+                    zipf = Double.parseDouble(value);
+                    break;
+                case "--start":
+                    start = LocalDate.parse(value);
+                    break;
+                case "--days":
+                    days = Integer.parseInt(value);
+                    break;
+                default:
+                    System.out.println("Unknown option " + args[i]);
+                    System.exit(2);
+            }
+        }
+        dir.mkdirs();
+        DatasetGenerator generator = new DatasetGenerator(users, products, transactions, seed, zipf, start, days);
+        long t0 = System.nanoTime();
+        long bytes = generator.writeUsers(new File(dir, "users.txt"));
+        bytes += generator.writeProducts(new File(dir, "products.txt"));
+        bytes += generator.writeTransactions(new File(dir, "transactions.txt"));
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        System.out.printf("Wrote %d users, %d products, %d transactions (%.1f MB) to %s in %.1f s (%.0f MB/s)%n",
+                users, products, transactions, bytes / 1e6, dir, seconds, bytes / 1e6 / seconds);
+    }
+
+    // The default admin first, then customers C1..Cn named after their number
+    long writeUsers(File file) throws IOException {
+        try (LineWriter out = new LineWriter(file)) {
+            out.line().append("A1,admin,admin,ADMIN");
+            out.endLine();
+            for (long i = 1; i <= users; i++) {
+                StringBuilder sb = out.line();
+                sb.append('C').append(i).append(',');
+                appendUsername(sb, i);
+                sb.append(",pw").append(i).append(",CUSTOMER");
+                out.endLine();
+            }
+            return out.bytes();
+        }
+    }
+
+    long writeProducts(File file) throws IOException {
+        try (LineWriter out = new LineWriter(file)) {
+            for (long i = 1; i <= products; i++) {
+                SplittableRandom r = productRandom(i);
+                StringBuilder sb = out.line();
+                sb.append('P').append(i).append(',')
+                        .append(ADJECTIVES[r.nextInt(ADJECTIVES.length)]).append(' ')
+                        .append(NOUNS[r.nextInt(NOUNS.length)]).append(' ')
+                        .append((char) ('A' + r.nextInt(26))).append(100 + r.nextInt(900)).append(',');
+                Money.append(sb, priceCents(r));
+                // Mostly well stocked, some sold out
+                sb.append(',').append(r.nextInt(10) == 0 ? 0 : 1 + r.nextInt(500));
+                out.endLine();
+            }
+            return out.bytes();
+        }
+    }
+
+    // Orders of one to three lines; buyers and products by Zipf rank, prices
+    // the same as writeProducts writes, and the lines stored with the order so
+    // the amount is their sum
+    long writeTransactions(File file) throws IOException {
+        SplittableRandom r = new SplittableRandom(seed);
+        ZipfSampler buyer = new ZipfSampler(users, zipfExponent);
+        ZipfSampler item = new ZipfSampler(products, zipfExponent);
+        long startSecond = start.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        long spanSeconds = days * 86_400L;
+        double meanGap = transactions == 0 ? 0 : (double) spanSeconds / transactions;
+        double meanRate = 0;
+        for (double h : HOURLY)
+            meanRate += h / HOURLY.length;
+        TimestampFormat dates = new TimestampFormat();
+        double t = 0;
+        List<OrderLine> orderLines = new ArrayList<>(3);
+        try (LineWriter out = new LineWriter(file)) {
+            for (long n = 0; n < transactions; n++) {
+                // Exponential gaps, shorter in busy hours
+                int hour = (int) ((long) t / 3600 % 24);
+                t += -Math.log(1 - r.nextDouble()) * meanGap * meanRate / HOURLY[hour];
+                long second = startSecond + Math.min((long) t, spanSeconds - 1);
+                long customer = scatter(buyer.sample(r), users, userStep);
+                int lines = r.nextInt(10) < 6 ? 1 : r.nextInt(4) < 3 ? 2 : 3;
+                long amount = 0;
+                orderLines.clear();
+                for (int l = 0; l < lines; l++) {
+                    long product = scatter(item.sample(r), products, productStep);
+                    long price = priceCents(productRandom(product));
+                    int qty = r.nextInt(4) == 0 ? 2 : 1;
+                    amount += price * qty;
+                    orderLines.add(new OrderLine("P" + product, qty, price));
+                }
+                StringBuilder sb = out.line();
+                appendUsername(sb, customer);
+                Money.append(sb.append("||"), amount).append("||");
+                dates.append(sb, second);
+                OrderLine.appendAll(sb.append("||"), orderLines);
+                out.endLine();
+            }
+            return out.bytes();
+        }
+    }
+
+    // Unique, readable and computed from the number alone: "sara.khan1234"
+    private static void appendUsername(StringBuilder sb, long i) {
+        long h = mix(i);
+        sb.append(FIRST[(int) Long.remainderUnsigned(h, FIRST.length)]).append('.')
+                .append(LAST[(int) Long.remainderUnsigned(h >>> 20, LAST.length)]).append(i);
+    }
+
+    // Everything about product i comes from its own random stream, so the
+    // transactions can price a product without the product file in memory
+    private SplittableRandom productRandom(long i) {
+        return new SplittableRandom(mix(seed ^ mix(i)));
+    }
+
+    // Log-normal around $25, ending in .99 like shop prices, $0.99 to $9,999.99
+    private static long priceCents(SplittableRandom r) {
+        double gaussian = Math.sqrt(-2 * Math.log(1 - r.nextDouble())) * Math.cos(2 * Math.PI * r.nextDouble());
+        double dollars = Math.exp(Math.log(25) + 1.0 * gaussian);
+        long whole = Math.max(0, Math.min(9_999, (long) dollars));
+        return whole * 100 + 99;
+    }
+
+    // Spreads Zipf ranks 1..n over ids 1..n with a fixed bijection, so the most
+    // active customers and best-selling products are not simply the first ones
+    private static long scatter(long rank, long n, long step) {
+        return Math.floorMod((rank - 1) * step, n) + 1;
+    }
+
+    // Step near n / golden ratio that shares no factor with n
+    private static long coprimeStep(long n) {
+        if (n <= 2)
+            return 1;
+        long step = (long) (n * 0.6180339887) | 1;
+        while (gcd(step, n) != 1)
+            step += 2;
+        return step;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Zipf Sampler - ranks 1..n with P(k) proportional to 1/k^s, by rejection-inversion
+    // (Hormann and Derflinger): constant time per sample and no tables, so n can
+    // be in the hundreds of millions
+    static final class ZipfSampler {
+        private final long n;
+        private final double s;
+        private final double hIntegralX1;
+        private final double hIntegralN;
+        private final double threshold;
+
+        ZipfSampler(long n, double s) {
+            if (n < 1 || s <= 0)
+                throw new IllegalArgumentException("Zipf needs n >= 1 and s > 0");
+            this.n = n;
+            this.s = s;
+            this.hIntegralX1 = hIntegral(1.5) - 1;
+            this.hIntegralN = hIntegral(n + 0.5);
+            this.threshold = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+        }
+
+        long sample(SplittableRandom r) {
+            while (true) {
+                double u = hIntegralN + r.nextDouble() * (hIntegralX1 - hIntegralN);
+                double x = hIntegralInverse(u);
+                long k = Math.max(1, Math.min(n, (long) (x + 0.5)));
+                if (k - x <= threshold || u >= hIntegral(k + 0.5) - h(k))
+                    return k;
+            }
+        }
+
+        private double h(double x) {
+            return Math.exp(-s * Math.log(x));
+        }
+
+        private double hIntegral(double x) {
+            double logX = Math.log(x);
+            return helper2((1 - s) * logX) * logX;
+        }
+
+        private double hIntegralInverse(double x) {
+            double t = Math.max(-1, x * (1 - s));
+            return Math.exp(helper1(t) * x);
+        }
+
+        // log(1 + x) / x, accurate near 0
+        private static double helper1(double x) {
+            return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+        }
+
+        // (exp(x) - 1) / x, accurate near 0
+        private static double helper2(double x) {
+            return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+        }
+    }
+
+    // "yyyy-MM-dd HH:mm:ss" for UTC epoch seconds; the date part is only
+    // recomputed when the day changes, which for a time-ordered ledger is rarely
+    static final class TimestampFormat {
+        private long day = Long.MIN_VALUE;
+        private String date;
+
+        void append(StringBuilder sb, long epochSecond) {
+            long d = Math.floorDiv(epochSecond, 86_400);
+            if (d != day) {
+                day = d;
+                date = LocalDateTime.ofEpochSecond(d * 86_400, 0, ZoneOffset.UTC).toLocalDate().toString();
+            }
+            int secondOfDay = (int) Math.floorMod(epochSecond, 86_400L);
+            sb.append(date).append(' ');
+            twoDigits(sb, secondOfDay / 3600);
+            sb.append(':');
+            twoDigits(sb, secondOfDay / 60 % 60);
+            sb.append(':');
+            twoDigits(sb, secondOfDay % 60);
+        }
+
+        private static void twoDigits(StringBuilder sb, int v) {
+            sb.append((char) ('0' + v / 10)).append((char) ('0' + v % 10));
+        }
+    }
+
+    // Line Writer - builds each line in one reused StringBuilder and copies it as
+    // ASCII into a large byte buffer, avoiding the charset encoder per line
+    static final class LineWriter implements AutoCloseable {
+        private final OutputStream out;
+        private final StringBuilder line = new StringBuilder(128);
+        private final byte[] buffer = new byte[1 << 20];
+        private int used;
+        private long written;
+
+        LineWriter(File file) throws IOException {
+            out = new FileOutputStream(file);
+        }
+
+        StringBuilder line() {
+            line.setLength(0);
+            return line;
+        }
+
+        void endLine() throws IOException {
+            line.append('\n');
+            int n = line.length();
+            if (used + n > buffer.length)
+                flush();
+            for (int i = 0; i < n; i++)
+                buffer[used + i] = (byte) line.charAt(i);
+            used += n;
+            written += n;
+        }
+
+        long bytes() {
+            return written;
+        }
+
+        private void flush() throws IOException {
+            out.write(buffer, 0, used);
+            used = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            out.close();
+        }
+    }
+}
@@ -1,4 +1,9 @@
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.io.*;
 import java.util.Date;
 import java.text.SimpleDateFormat;
@@ -48,32 +53,16 @@ abstract class User implements Manageable {
     }
 }
 
-// Customer Class
+// Customer Class - order history is kept by the system's order store
 class Customer extends User {
-    private ArrayList<String> orders;
-
     public Customer(String id, String username, String password) {
         super(id, username, password);
-        this.orders = new ArrayList<>();
     }
 
     @Override
     public String getType() {
         return "CUSTOMER";
     }
-
-    public void addOrder(String orderId) {
-        orders.add(orderId);
-        System.out.println("Order added!");
-    }
-
-    public void showOrders() {
-        if (orders.isEmpty()) {
-            System.out.println("No orders yet.");
-        } else {
-            System.out.println("Orders: " + orders);
-        }
-    }
 }
 
 // Admin Class
@@ -92,13 +81,13 @@ class Admin extends User {
 class Product implements Manageable {
     private String id;
     private String name;
-    private double price;
+    private long priceCents;
     private int stock;
 
-    public Product(String id, String name, double price, int stock) {
+    public Product(String id, String name, long priceCents, int stock) {
         this.id = id;
         this.name = name;
-        this.price = price;
+        this.priceCents = priceCents;
         this.stock = stock;
     }
 
@@ -110,16 +99,16 @@ class Product implements Manageable {
         return name;
     }
 
-    public double getPrice() {
-        return price;
+    public long getPriceCents() {
+        return priceCents;
     }
 
     public int getStock() {
         return stock;
     }
 
-    public void setPrice(double price) {
-        this.price = price;
+    public void setPriceCents(long priceCents) {
+        this.priceCents = priceCents;
     }
 
     public void reduceStock(int qty) {
@@ -134,11 +123,11 @@ class Product implements Manageable {
 
     @Override
     public void display() {
-        System.out.println(id + " | " + name + " | $" + price + " | Stock: " + stock);
+        System.out.println(id + " | " + name + " | $" + Money.format(priceCents) + " | Stock: " + stock);
     }
 
     public String toFile() {
-        return id + "," + name + "," + price + "," + stock;
+        return id + "," + name + "," + Money.format(priceCents) + "," + stock;
     }
 }
 
@@ -146,10 +135,15 @@ class Product implements Manageable {
 class CartItem {
     private Product product;
     private int quantity;
+    private long unitPriceCents;
 
+    // The unit price is captured when the line is created so the cart can keep
+    // its subtotal up to date without re-reading every product; checkout
+    // re-prices the cart before charging
     public CartItem(Product product, int quantity) {
         this.product = product;
         this.quantity = quantity;
+        this.unitPriceCents = product.getPriceCents();
     }
 
     public Product getProduct() {
@@ -160,42 +154,189 @@ class CartItem {
         return quantity;
     }
 
-    public double getTotal() {
-        return product.getPrice() * quantity;
+    void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public long getUnitPriceCents() {
+        return unitPriceCents;
+    }
+
+    void setUnitPriceCents(long unitPriceCents) {
+        this.unitPriceCents = unitPriceCents;
+    }
+
+    public long getTotalCents() {
+        return unitPriceCents * quantity;
     }
 
     public void display() {
-        System.out.println(product.getName() + " x" + quantity + " = $" + getTotal());
+        System.out.println(product.getName() + " x" + quantity + " = $" + Money.format(getTotalCents()));
+    }
+}
+
+// PurchaseLine Class - one (product id, quantity) line of a bulk purchase list
+class PurchaseLine {
+    private String productId;
+    private int quantity;
+
+    public PurchaseLine(String productId, int quantity) {
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    // Parses a pasted purchase list, one "productId,qty" (or whitespace separated)
+    // line per entry; blank lines and lines starting with '#' are skipped
+    static List<PurchaseLine> parse(String text, List<String> errors) {
+        List<PurchaseLine> lines = new ArrayList<>();
+        String[] rows = text.split("\\R");
+        for (int i = 0; i < rows.length; i++) {
+            String row = rows[i].trim();
+            if (row.isEmpty() || row.startsWith("#"))
+                continue;
+            String[] p = row.split("[,;\\s]+");
+            if (p.length != 2) {
+                errors.add("Line " + (i + 1) + ": expected product id and quantity");
+                continue;
+            }
+            try {
+                lines.add(new PurchaseLine(p[0], Integer.parseInt(p[1])));
+            } catch (NumberFormatException e) {
+                errors.add("Line " + (i + 1) + ": invalid quantity '" + p[1] + "'");
+            }
+        }
+        return lines;
     }
 }
 
 // ShoppingCart Class
 class ShoppingCart {
-    private ArrayList<CartItem> items;
+    private static final Log.Event ADDED = Log.event("cart.added", Log.Level.DEBUG);
+    private static final Log.Event REMOVED = Log.event("cart.removed", Log.Level.DEBUG);
+    private static final Log.Event NOT_ENOUGH_STOCK = Log.event("cart.not_enough_stock", Log.Level.DEBUG);
+
+    // Lines keyed by product id, kept in insertion order for display
+    private LinkedHashMap<String, CartItem> items;
+    private Collection<CartItem> itemsView;
+    private long subtotalCents;
+    // Non-empty carts of the system this one belongs to; null if not counted
+    private final LongAdder active;
 
     public ShoppingCart() {
-        items = new ArrayList<>();
+        this(null);
+    }
+
+    ShoppingCart(LongAdder active) {
+        this.active = active;
+        items = new LinkedHashMap<>();
+        itemsView = Collections.unmodifiableCollection(items.values());
     }
 
+    // Adds a new line or merges the quantity into an existing one
     public boolean addItem(Product product, int qty) {
-        if (qty > product.getStock()) {
-            System.out.println("Not enough stock!");
+        CartItem item = items.get(product.getId());
+        int current = item == null ? 0 : item.getQuantity();
+        if (current + qty > product.getStock()) {
+            NOT_ENOUGH_STOCK.log("product", product.getId(), "requested", current + qty, "stock", product.getStock());
             return false;
         }
-        for (CartItem item : items) {
-            if (item.getProduct().getId().equals(product.getId())) {
-                System.out.println("Already in cart!");
-                return false;
-            }
+        if (item == null) {
+            item = new CartItem(product, qty);
+            putItem(product.getId(), item);
+        } else {
+            item.setQuantity(current + qty);
         }
-        items.add(new CartItem(product, qty));
-        System.out.println("Added to cart!");
+        subtotalCents += item.getUnitPriceCents() * qty;
+        ADDED.log("product", product.getId(), "qty", qty);
+        return true;
+    }
+
+    // Sets the quantity of an existing line in place; zero removes the line
+    public boolean updateQuantity(String productId, int qty) {
+        CartItem item = items.get(productId);
+        if (item == null || qty < 0)
+            return false;
+        if (qty == 0) {
+            removeItem(productId);
+            return true;
+        }
+        if (qty > item.getProduct().getStock()) {
+            NOT_ENOUGH_STOCK.log("product", productId, "requested", qty, "stock", item.getProduct().getStock());
+            return false;
+        }
+        subtotalCents += item.getUnitPriceCents() * (qty - item.getQuantity());
+        item.setQuantity(qty);
         return true;
     }
 
     public void removeItem(String productId) {
-        items.removeIf(item -> item.getProduct().getId().equals(productId));
-        System.out.println("Removed!");
+        CartItem item = items.remove(productId);
+        if (item != null) {
+            subtotalCents -= item.getTotalCents();
+            if (items.isEmpty() && active != null)
+                active.decrement();
+        }
+        REMOVED.log("product", productId, "found", item != null);
+    }
+
+    // Merges already validated quantities without per-line stock checks or output
+    void addLines(Map<Product, Integer> lines) {
+        for (Map.Entry<Product, Integer> e : lines.entrySet()) {
+            Product product = e.getKey();
+            int qty = e.getValue();
+            CartItem item = items.get(product.getId());
+            if (item == null) {
+                item = new CartItem(product, qty);
+                putItem(product.getId(), item);
+            } else {
+                item.setQuantity(item.getQuantity() + qty);
+            }
+            subtotalCents += item.getUnitPriceCents() * qty;
+        }
+    }
+
+    // Brings every line to its product's current price
+    void reprice() {
+        for (CartItem item : items.values()) {
+            long price = item.getProduct().getPriceCents();
+            if (price != item.getUnitPriceCents()) {
+                subtotalCents += (price - item.getUnitPriceCents()) * item.getQuantity();
+                item.setUnitPriceCents(price);
+            }
+        }
+    }
+
+    // Takes back quantities merged by addLines; lines left empty are removed
+    void removeLines(Map<Product, Integer> lines) {
+        for (Map.Entry<Product, Integer> e : lines.entrySet()) {
+            CartItem item = items.get(e.getKey().getId());
+            if (item == null)
+                continue;
+            int qty = Math.min(e.getValue(), item.getQuantity());
+            if (qty == item.getQuantity()) {
+                removeItem(item.getProduct().getId());
+            } else {
+                item.setQuantity(item.getQuantity() - qty);
+                subtotalCents -= item.getUnitPriceCents() * qty;
+            }
+        }
+    }
+
+    public CartItem getItem(String productId) {
+        return items.get(productId);
+    }
+
+    public int getQuantity(String productId) {
+        CartItem item = items.get(productId);
+        return item == null ? 0 : item.getQuantity();
     }
 
     public void display() {
@@ -204,144 +345,457 @@ class ShoppingCart {
             return;
         }
         System.out.println("\n--- CART ---");
-        for (CartItem item : items) {
+        for (CartItem item : items.values()) {
             item.display();
         }
-        System.out.println("Total: $" + getTotal());
+        System.out.println("Total: $" + Money.format(getTotalCents()));
     }
 
-    public double getTotal() {
-        return items.stream().mapToDouble(CartItem::getTotal).sum();
+    public long getTotalCents() {
+        return subtotalCents;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
     }
 
     public void clear() {
+        if (!items.isEmpty() && active != null)
+            active.decrement();
         items.clear();
+        subtotalCents = 0;
+    }
+
+    private void putItem(String productId, CartItem item) {
+        if (items.isEmpty() && active != null)
+            active.increment();
+        items.put(productId, item);
+    }
+
+    // Read-only view of the cart lines, no copy is made
+    public Collection<CartItem> getItems() {
+        return itemsView;
+    }
+}
+
+// OrderLine Class - one product of a completed order, at the unit price charged
+class OrderLine {
+    private final String productId;
+    private final int quantity;
+    private final long unitPriceCents;
+
+    public OrderLine(String productId, int quantity, long unitPriceCents) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.unitPriceCents = unitPriceCents;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public long getUnitPriceCents() {
+        return unitPriceCents;
     }
 
-    public List<CartItem> getItems() {
-        return new ArrayList<>(items);
+    static List<OrderLine> of(ShoppingCart cart) {
+        List<OrderLine> lines = new ArrayList<>(cart.size());
+        for (CartItem item : cart.getItems())
+            lines.add(new OrderLine(item.getProduct().getId(), item.getQuantity(), item.getUnitPriceCents()));
+        return Collections.unmodifiableList(lines);
+    }
+
+    // "P1:2:999.00;P7:1:25.00", as stored in transactions.txt and the journal
+    static StringBuilder appendAll(StringBuilder sb, List<OrderLine> lines) {
+        for (int i = 0; i < lines.size(); i++) {
+            OrderLine line = lines.get(i);
+            if (i > 0)
+                sb.append(';');
+            sb.append(line.productId).append(':').append(line.quantity).append(':');
+            Money.append(sb, line.unitPriceCents);
+        }
+        return sb;
+    }
+
+    static List<OrderLine> parseAll(String text) {
+        if (text.isEmpty())
+            return List.of();
+        List<OrderLine> lines = new ArrayList<>();
+        for (String part : text.split(";")) {
+            int a = part.indexOf(':');
+            int b = part.lastIndexOf(':');
+            if (a < 0 || a == b)
+                throw new IllegalArgumentException("Not an order line: \"" + part + "\"");
+            lines.add(new OrderLine(part.substring(0, a), Integer.parseInt(part.substring(a + 1, b)),
+                    Money.parse(part.substring(b + 1))));
+        }
+        return Collections.unmodifiableList(lines);
     }
 }
 
 // Transaction Class
 class Transaction {
+    private static final java.time.format.DateTimeFormatter FILE_DATE = java.time.format.DateTimeFormatter
+            .ofPattern("yyyy-MM-dd HH:mm:ss").withZone(java.time.ZoneId.systemDefault());
     private String username;
-    private double amount;
-    private Date date;
+    private long amountCents;
+    // Epoch milliseconds rather than a Date, which would be one more object per ledger entry
+    private long timeMillis;
+    // The lines are kept by the order store, not by each transaction
+    private OrderStore store;
+    private int orderId;
     private static SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 
-    public Transaction(String username, double amount, Date date) {
+    public Transaction(String username, long amountCents, Date date) {
+        this(username, amountCents, date.getTime(), null, 0);
+    }
+
+    Transaction(String username, long amountCents, long timeMillis, OrderStore store, int orderId) {
         this.username = username;
-        this.amount = amount;
-        this.date = date;
+        this.amountCents = amountCents;
+        this.timeMillis = timeMillis;
+        this.store = store;
+        this.orderId = orderId;
     }
 
     public String getUsername() {
         return username;
     }
 
-    public double getAmount() {
-        return amount;
+    public long getAmountCents() {
+        return amountCents;
     }
 
     public Date getDate() {
-        return date;
+        return new Date(timeMillis);
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    // Position in the ledger, from 1; 0 if the transaction is not in a store
+    public int getOrderId() {
+        return orderId;
+    }
+
+    public List<OrderLine> getLines() {
+        return store == null ? List.of() : store.lines(orderId);
+    }
+
+    // username||amount||yyyy-MM-dd HH:mm:ss, then ||lines when they are known
+    public String toFile() {
+        StringBuilder sb = new StringBuilder(64).append(username).append("||");
+        Money.append(sb, amountCents).append("||");
+        FILE_DATE.formatTo(java.time.Instant.ofEpochMilli(timeMillis), sb);
+        List<OrderLine> lines = getLines();
+        if (!lines.isEmpty())
+            OrderLine.appendAll(sb.append("||"), lines);
+        return sb.toString();
     }
 
     public String toString() {
-        return "| " + username + " | $" + String.format("%.2f", amount) + " | " + sdf.format(date) + " |";
+        StringBuilder sb = new StringBuilder(64).append("| ").append(username).append(" | $");
+        return Money.append(sb, amountCents).append(" | ").append(sdf.format(getDate())).append(" |").toString();
     }
 }
 
 class EcommerceSystem {
-    private ArrayList<User> users = new ArrayList<>();
-    private ArrayList<Product> products = new ArrayList<>();
-    private ArrayList<Transaction> transactions = new ArrayList<>();
-    private ShoppingCart cart = new ShoppingCart();
+    private static final Log.Event LOADED = Log.event("data.loaded", Log.Level.INFO);
+    private static final Log.Event LOAD_FAILED = Log.event("data.load_failed", Log.Level.ERROR);
+    private static final Log.Event SAVE_FAILED = Log.event("data.save_failed", Log.Level.ERROR);
+    private static final Log.Event PAYMENT_COMPLETED = Log.event("payment.completed", Log.Level.INFO);
+    private static final Log.Event PAYMENT_REFUSED = Log.event("payment.refused", Log.Level.WARN);
+    private static final Log.Event JOURNAL_FAILED = Log.event("journal.failed", Log.Level.ERROR);
+    // Users and products are read far more often than they change, so they are
+    // copy-on-write and handed out as read-only views; the ledger only grows and
+    // hands out O(1) snapshots instead
+    private CopyOnWriteArrayList<User> users = new CopyOnWriteArrayList<>();
+    private CopyOnWriteArrayList<Product> products = new CopyOnWriteArrayList<>();
+    private AppendOnlyList<Transaction> transactions = new AppendOnlyList<>();
+    // The lines of every ledger entry, indexed by customer and by product
+    private final OrderStore orders = new OrderStore();
+    // Top products and customers, fed by every order as it is appended
+    private final BestSellers bestSellers = new BestSellers();
+    private final AtomicLong revenueCents = new AtomicLong();
+    private final List<User> usersView = Collections.unmodifiableList(users);
+    private final List<Product> productsView = Collections.unmodifiableList(products);
+    private final Map<String, Product> productIndex = new ConcurrentHashMap<>();
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+    private final ProductSortIndex sortIndex = new ProductSortIndex();
+    // Completed checkouts by "username|idempotency key", so a retried checkout
+    // returns the original transaction instead of charging twice
+    private final IdempotencyCache<Transaction> checkouts = new IdempotencyCache<>(10_000, 15, TimeUnit.MINUTES);
+    private final ChangeNotifier notifier;
+    private final Metrics metrics = new Metrics();
+    private final Metrics.Timer loginTimer = metrics.timer("login");
+    private final Metrics.Timer checkoutTimer = metrics.timer("checkout");
+    private final Metrics.Timer loadTimer = metrics.timer("loadData");
+    private final Metrics.Timer saveTimer = metrics.timer("saveData");
+    private final LongAdder checkoutReplays = metrics.counter("checkout.replays");
+    // Carts from newCart and the session cart that hold at least one line
+    private final LongAdder activeCarts = new LongAdder();
+    private ShoppingCart cart = new ShoppingCart(activeCarts);
     private User currentUser;
+    // Where the data files live; null for the working directory
+    private File dataDir;
+    // Null until openJournal; changes made before then are not journaled
+    private volatile Journal journal;
+
+    EcommerceSystem() {
+        this(SwingUtilities::invokeLater);
+    }
+
+    // Change events are delivered in batches on the given executor
+    EcommerceSystem(java.util.concurrent.Executor eventDelivery) {
+        notifier = new ChangeNotifier(eventDelivery);
+        metrics.gauge("catalog.size", products::size);
+        metrics.gauge("users.size", users::size);
+        metrics.gauge("ledger.size", () -> transactions.size());
+        metrics.gauge("carts.active", activeCarts::sum);
+        metrics.gauge("log.dropped", Log::dropped);
+    }
+
+    Metrics getMetrics() {
+        return metrics;
+    }
+
+    void addChangeListener(SystemListener listener) {
+        notifier.addListener(listener);
+    }
+
+    void removeChangeListener(SystemListener listener) {
+        notifier.removeListener(listener);
+    }
+
+    void setDataDirectory(File dir) {
+        dataDir = dir;
+    }
+
+    private File dataFile(String name) {
+        return new File(dataDir, name);
+    }
+
+    // Starts recording every change to stock, prices and the ledger in the
+    // journal next to the data files. Call after loadData and before serving
+    // anyone: a new journal starts with the catalog and ledger totals as they
+    // are at that moment.
+    synchronized boolean openJournal() {
+        if (journal != null)
+            return true;
+        try {
+            Journal j = new Journal(dataFile(Journal.FILE_NAME));
+            if (j.isNew())
+                j.baseline(transactions.size(), revenueCents.get(), products);
+            journal = j;
+            return true;
+        } catch (IOException e) {
+            JOURNAL_FAILED.log("file", Journal.FILE_NAME, "error", e.getMessage());
+            return false;
+        }
+    }
+
+    synchronized void closeJournal() {
+        Journal j = journal;
+        journal = null;
+        if (j == null)
+            return;
+        try {
+            j.close();
+        } catch (IOException e) {
+            JOURNAL_FAILED.log("file", Journal.FILE_NAME, "error", e.getMessage());
+        }
+    }
 
     void loadData() {
-        File userFile = new File("users.txt");
+        long start = System.nanoTime();
+        boolean ok = true;
+        File userFile = dataFile("users.txt");
         if (userFile.exists()) {
+            DataLoadEvent event = loadStarted(userFile);
+            ArrayList<User> loaded = new ArrayList<>();
             try (Scanner sc = new Scanner(userFile)) {
                 while (sc.hasNextLine()) {
                     String[] p = sc.nextLine().split(",");
-                    users.add(p[3].equals("CUSTOMER") ? new Customer(p[0], p[1], p[2]) : new Admin(p[0], p[1], p[2]));
+                    loaded.add(p[3].equals("CUSTOMER") ? new Customer(p[0], p[1], p[2]) : new Admin(p[0], p[1], p[2]));
                 }
             } catch (Exception e) {
-                System.out.println("User file issue: " + e.getMessage());
+                LOAD_FAILED.log("file", "users.txt", "error", e.getMessage());
+                ok = false;
+                event.parseErrors = 1;
+                event.error = e.getMessage();
             }
+            users.addAll(loaded);
+            event.records = loaded.size();
+            event.commit();
         }
 
-        File productFile = new File("products.txt");
+        File productFile = dataFile("products.txt");
         if (productFile.exists()) {
+            DataLoadEvent event = loadStarted(productFile);
+            ArrayList<Product> loaded = new ArrayList<>();
             try (Scanner sc = new Scanner(productFile)) {
                 while (sc.hasNextLine()) {
                     String[] p = sc.nextLine().split(",");
-                    products.add(new Product(p[0], p[1], Double.parseDouble(p[2]), Integer.parseInt(p[3])));
+                    loaded.add(new Product(p[0], p[1], Money.parse(p[2]), Integer.parseInt(p[3])));
                 }
             } catch (Exception e) {
-                System.out.println("Product file issue: " + e.getMessage());
+                LOAD_FAILED.log("file", "products.txt", "error", e.getMessage());
+                ok = false;
+                event.parseErrors = 1;
+                event.error = e.getMessage();
             }
+            products.addAll(loaded);
+            loaded.forEach(p -> productIndex.put(p.getId(), p));
+            searchIndex.addAll(loaded);
+            sortIndex.addAll(loaded);
+            event.records = loaded.size();
+            event.commit();
         }
 
-        File txnFile = new File("transactions.txt");
+        File txnFile = dataFile("transactions.txt");
         if (txnFile.exists()) {
+            DataLoadEvent event = loadStarted(txnFile);
             try (Scanner sc = new Scanner(txnFile)) {
                 while (sc.hasNextLine()) {
                     String[] p = sc.nextLine().split("\\|\\|");
-                    if (p.length == 3)
-                        transactions.add(new Transaction(p[0].trim(), Double.parseDouble(p[1].trim()),
-                                new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse(p[2].trim())));
+                    if (p.length == 3 || p.length == 4) {
+                        long amount = Money.parse(p[1]);
+                        long time = new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse(p[2].trim()).getTime();
+                        appendOrder(p[0].trim(), amount, time,
+                                p.length == 4 ? OrderLine.parseAll(p[3].trim()) : List.of());
+                        revenueCents.addAndGet(amount);
+                        event.records++;
+                    } else {
+                        event.parseErrors++;
+                    }
                 }
             } catch (Exception e) {
-                System.out.println("Transaction file issue: " + e.getMessage());
+                LOAD_FAILED.log("file", "transactions.txt", "error", e.getMessage());
+                ok = false;
+                event.parseErrors++;
+                event.error = e.getMessage();
             }
+            event.commit();
         }
 
         if (users.isEmpty())
             users.add(new Admin("A1", "admin", "admin"));
         if (products.isEmpty()) {
-            products.add(new Product("P1", "Laptop", 999, 5));
-            products.add(new Product("P2", "Mouse", 25, 10));
+            addProduct("P1", "Laptop", 99900, 5);
+            addProduct("P2", "Mouse", 2500, 10);
         }
+        loadTimer.record(start, ok);
+        LOADED.log("users", users.size(), "products", products.size(), "transactions", transactions.size(),
+                "millis", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static DataLoadEvent loadStarted(File file) {
+        DataLoadEvent event = new DataLoadEvent();
+        event.begin();
+        event.file = file.getName();
+        event.bytes = file.length();
+        return event;
     }
 
     void saveData() {
+        long start = System.nanoTime();
+        boolean ok = true;
+        PersistenceEvent event = saveStarted("users.txt");
         try {
-            PrintWriter pw = new PrintWriter(new FileWriter("users.txt"));
+            PrintWriter pw = new PrintWriter(new FileWriter(dataFile("users.txt")));
             users.forEach(u -> pw.println(u.toFile()));
             pw.close();
+            event.records = users.size();
         } catch (Exception e) {
-            System.out.println("Error saving users: " + e.getMessage());
+            SAVE_FAILED.log("file", "users.txt", "error", e.getMessage());
+            ok = false;
+            event.error = e.getMessage();
         }
+        saveDone(event);
+        event = saveStarted("products.txt");
         try {
-            PrintWriter pw = new PrintWriter(new FileWriter("products.txt"));
+            PrintWriter pw = new PrintWriter(new FileWriter(dataFile("products.txt")));
             products.forEach(p -> pw.println(p.toFile()));
             pw.close();
+            event.records = products.size();
         } catch (Exception e) {
-            System.out.println("Error saving products: " + e.getMessage());
+            SAVE_FAILED.log("file", "products.txt", "error", e.getMessage());
+            ok = false;
+            event.error = e.getMessage();
         }
+        saveDone(event);
+        event = saveStarted("transactions.txt");
         try {
-            PrintWriter pw = new PrintWriter(new FileWriter("transactions.txt"));
-            java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-            for (Transaction t : transactions)
-                pw.println(t.getUsername() + "||" + t.getAmount() + "||" + sdf.format(t.getDate()));
+            PrintWriter pw = new PrintWriter(new FileWriter(dataFile("transactions.txt")));
+            List<Transaction> saved = transactions.snapshot();
+            for (Transaction t : saved)
+                pw.println(t.toFile());
             pw.close();
+            event.records = saved.size();
         } catch (Exception e) {
-            System.out.println("Error saving transactions: " + e.getMessage());
+            SAVE_FAILED.log("file", "transactions.txt", "error", e.getMessage());
+            ok = false;
+            event.error = e.getMessage();
+        }
+        saveDone(event);
+        Journal j = journal;
+        if (ok && j != null)
+            j.snapshotSaved();
+        saveTimer.record(start, ok);
+    }
+
+    private static PersistenceEvent saveStarted(String name) {
+        PersistenceEvent event = new PersistenceEvent();
+        event.begin();
+        event.file = name;
+        return event;
+    }
+
+    private void saveDone(PersistenceEvent event) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.bytes = dataFile(event.file).length();
+            event.commit();
         }
     }
 
     public User login(String username, String password) {
+        User u = authenticate(username, password);
+        if (u != null) {
+            currentUser = u;
+            cart.clear();
+        }
+        return u;
+    }
+
+    // The user with these credentials, or null; does not start a session
+    User authenticate(String username, String password) {
+        LoginEvent event = new LoginEvent();
+        event.begin();
+        long start = System.nanoTime();
+        User found = null;
+        int scanned = 0;
         for (User u : users) {
+            scanned++;
             if (u.getUsername().equals(username) && u.getPassword().equals(password)) {
-                currentUser = u;
-                cart.clear();
-                return u;
+                found = u;
+                break;
             }
         }
-        return null;
+        loginTimer.record(start, found != null);
+        event.success = found != null;
+        event.usersScanned = scanned;
+        event.commit();
+        return found;
     }
 
     public User getCurrentUser() {
@@ -353,12 +807,15 @@ class EcommerceSystem {
         cart.clear();
     }
 
-    public boolean register(String username, String password) {
+    // Synchronized so concurrent sign-ups cannot take the same name or id
+    public synchronized boolean register(String username, String password) {
         for (User u : users)
             if (u.getUsername().equals(username))
                 return false;
         String id = "C" + (users.size() + 1);
-        users.add(new Customer(id, username, password));
+        Customer c = new Customer(id, username, password);
+        users.add(c);
+        notifier.publish(ChangeEvent.Type.USER_REGISTERED, c);
         return true;
     }
 
@@ -371,16 +828,104 @@ class EcommerceSystem {
     }
 
     Product findProduct(String id) {
-        return products.stream().filter(p -> p.getId().equals(id)).findFirst().orElse(null);
+        return id == null ? null : productIndex.get(id);
+    }
+
+    // Up to limit products whose name has a word starting with each word of
+    // query; null for a blank query
+    List<Product> searchProducts(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    // One page of the catalog in the query's order, starting after its cursor
+    ProductPage listProducts(ProductQuery query) {
+        return sortIndex.page(query);
+    }
+
+    // For long runs of stock and price changes, such as a journal replay: the
+    // browse order is brought up to date once, by endBulkChanges, rather than
+    // after every change
+    void beginBulkChanges() {
+        sortIndex.deferUpdates();
+    }
+
+    void endBulkChanges() {
+        sortIndex.resumeUpdates();
     }
 
     boolean addProductToCart(String id, int qty) {
+        return addProductToCart(cart, id, qty);
+    }
+
+    // A cart for a shopper held by the caller rather than the session, counted in
+    // carts.active while it holds lines; empty it when the shopper leaves
+    ShoppingCart newCart() {
+        return new ShoppingCart(activeCarts);
+    }
+
+    // The same for a cart held by the caller rather than the session
+    boolean addProductToCart(ShoppingCart cart, String id, int qty) {
         Product p = findProduct(id);
         if (p == null || qty <= 0)
             return false;
         return cart.addItem(p, qty);
     }
 
+    // Validates every line against the catalog and the current cart in one pass and
+    // then adds them all, or none of them; returns the problems found, empty on success
+    List<String> addProductsToCart(List<PurchaseLine> lines) {
+        List<String> errors = new ArrayList<>();
+        addProductsToCart(lines, errors);
+        return errors;
+    }
+
+    // The quantities added per product, or null if errors were found
+    private Map<Product, Integer> addProductsToCart(List<PurchaseLine> lines, List<String> errors) {
+        LinkedHashMap<Product, Integer> merged = new LinkedHashMap<>();
+        for (PurchaseLine line : lines) {
+            Product p = findProduct(line.getProductId());
+            if (p == null)
+                errors.add(line.getProductId() + ": product not found");
+            else if (line.getQuantity() <= 0)
+                errors.add(line.getProductId() + ": quantity must be positive");
+            else
+                merged.merge(p, line.getQuantity(), Integer::sum);
+        }
+        for (Map.Entry<Product, Integer> e : merged.entrySet()) {
+            Product p = e.getKey();
+            int wanted = cart.getQuantity(p.getId()) + e.getValue();
+            if (wanted > p.getStock())
+                errors.add(p.getId() + ": only " + p.getStock() + " in stock, " + wanted + " requested");
+        }
+        if (!errors.isEmpty())
+            return null;
+        cart.addLines(merged);
+        return merged;
+    }
+
+    // Bulk cart followed by checkout of the whole cart as a single order. If
+    // the checkout fails, the lines just added are taken out again, so the cart
+    // is as it was and a retry does not double them.
+    List<String> placeBulkOrder(List<PurchaseLine> lines) {
+        if (currentUser == null)
+            return List.of("Please login before checkout.");
+        if (lines.isEmpty())
+            return List.of("No items to order.");
+        List<String> errors = new ArrayList<>();
+        Map<Product, Integer> added = addProductsToCart(lines, errors);
+        if (added == null || processPayment())
+            return errors;
+        // Stock may have been sold between the check above and the checkout
+        for (CartItem item : cart.getItems())
+            if (item.getQuantity() > item.getProduct().getStock())
+                errors.add("Checkout failed: " + item.getProduct().getId() + " has only "
+                        + item.getProduct().getStock() + " in stock, " + item.getQuantity() + " requested");
+        if (errors.isEmpty())
+            errors.add("Checkout failed: the order total is zero.");
+        cart.removeLines(added);
+        return errors;
+    }
+
     void viewCart() {
         cart.display();
     }
@@ -389,16 +934,19 @@ class EcommerceSystem {
         return cart;
     }
 
+    // Read-only view of the catalog; iteration sees a consistent snapshot
     List<Product> getProducts() {
-        return new ArrayList<>(products);
+        return productsView;
     }
 
+    // Read-only view of the registered users; iteration sees a consistent snapshot
     List<User> getUsers() {
-        return new ArrayList<>(users);
+        return usersView;
     }
 
+    // Immutable snapshot of the ledger, taken in O(1)
     List<Transaction> getTransactions() {
-        return new ArrayList<>(transactions);
+        return transactions.snapshot();
     }
 
     void showUsers() {
@@ -408,32 +956,90 @@ class EcommerceSystem {
     }
 
     boolean removeUser(String username) {
-        Iterator<User> it = users.iterator();
-        while (it.hasNext()) {
-            User u = it.next();
+        for (User u : users) {
             if (u.getUsername().equals(username)) {
-                if (u instanceof Admin)
+                if (u instanceof Admin || !users.remove(u))
                     return false;
-                it.remove();
+                notifier.publish(ChangeEvent.Type.USER_REMOVED, u);
                 return true;
             }
         }
         return false;
     }
 
-    boolean addProduct(String id, String name, double price, int stock) {
-        if (findProduct(id) != null)
+    // Catalog changes are journaled under the checkout lock, like restocks, so
+    // the journal orders them correctly against the orders that use them
+    boolean addProduct(String id, String name, long priceCents, int stock) {
+        if (priceCents < 0)
             return false;
-        products.add(new Product(id, name, price, stock));
+        Product p;
+        synchronized (this) {
+            if (findProduct(id) != null)
+                return false;
+            p = new Product(id, name, priceCents, stock);
+            products.add(p);
+            productIndex.put(id, p);
+            searchIndex.add(p);
+            sortIndex.add(p);
+            Journal j = journal;
+            if (j != null)
+                j.productAdded(p);
+        }
+        notifier.publish(ChangeEvent.Type.PRODUCT_ADDED, p);
         return true;
     }
 
     boolean removeProduct(String id) {
-        return products.removeIf(p -> p.getId().equals(id));
+        Product p;
+        synchronized (this) {
+            p = productIndex.remove(id);
+            if (p == null || !products.remove(p))
+                return false;
+            searchIndex.remove(p);
+            sortIndex.remove(p);
+            Journal j = journal;
+            if (j != null)
+                j.productRemoved(id);
+        }
+        notifier.publish(ChangeEvent.Type.PRODUCT_REMOVED, p);
+        return true;
     }
 
-    boolean processPayment(double t, Scanner sc) {
-        if (t <= 0)
+    boolean restockProduct(String id, int qty) {
+        Product p = findProduct(id);
+        if (p == null || qty <= 0)
+            return false;
+        // Under the checkout lock, so the stock update cannot be lost to a
+        // concurrent checkout and the journal has the restock before any order
+        // that takes the new units
+        synchronized (this) {
+            p.addStock(qty);
+            Journal j = journal;
+            if (j != null)
+                j.restocked(id, qty);
+        }
+        sortIndex.update(p);
+        notifier.publish(ChangeEvent.Type.STOCK_CHANGED, p);
+        return true;
+    }
+
+    boolean updateProductPrice(String id, long priceCents) {
+        Product p = findProduct(id);
+        if (p == null || priceCents < 0)
+            return false;
+        synchronized (this) {
+            p.setPriceCents(priceCents);
+            Journal j = journal;
+            if (j != null)
+                j.repriced(id, priceCents);
+        }
+        sortIndex.update(p);
+        notifier.publish(ChangeEvent.Type.PRICE_CHANGED, p);
+        return true;
+    }
+
+    boolean processPayment(Scanner sc) {
+        if (getCartTotal() <= 0)
             return false;
         System.out.println("\n--- PAYMENT OPTIONS ---\n1. Credit Card\n2. Debit Card\n3. Digital Wallet");
         System.out.print("Select: ");
@@ -446,63 +1052,243 @@ class EcommerceSystem {
             sc.nextLine();
             return false;
         }
-        if (!applyCartStockDeduction()) {
-            System.out.println("Unable to checkout: one or more items are out of stock.");
+        User user = currentUser;
+        if (user == null)
+            return false;
+        // The same locked, timed checkout as every other entry point
+        Transaction txn = checkout(user, cart, null);
+        if (txn == null) {
+            PAYMENT_REFUSED.log("user", user.getUsername(), "reason", "out of stock");
             return false;
         }
-        System.out.println("Payment of $" + String.format("%.2f", t)
-                + " processed successfully!\nOrder confirmed. Thank you for your purchase!");
-        recordTransaction(currentUser.getUsername(), t);
-        cart.clear();
+        PAYMENT_COMPLETED.log("user", user.getUsername(), "amount", Money.format(txn.getAmountCents()));
         return true;
     }
 
-    boolean processPayment(double t) {
-        if (t <= 0 || currentUser == null)
-            return false;
-        if (!applyCartStockDeduction())
-            return false;
-        recordTransaction(currentUser.getUsername(), t);
+    boolean processPayment() {
+        return processPayment((String) null) != null;
+    }
+
+    // Checks out the cart at most once per idempotency key: repeating a key that
+    // already succeeded returns the original transaction without touching stock
+    // or the ledger again. Returns null if the checkout failed; failures are not
+    // remembered, so the same key can be retried once the cart is fixed.
+    Transaction processPayment(String idempotencyKey) {
+        User user = currentUser;
+        return user == null ? null : checkout(user, cart, idempotencyKey);
+    }
+
+    // The same checkout for a cart and user held by the caller rather than the
+    // session, for callers serving several shoppers at once. Timed from before
+    // taking the lock, so time spent waiting for other checkouts is part of the
+    // latency.
+    Transaction checkout(User user, ShoppingCart cart, String idempotencyKey) {
+        CheckoutEvent event = new CheckoutEvent();
+        event.begin();
+        long start = System.nanoTime();
+        if (event.isEnabled()) {
+            event.lines = cart.size();
+            for (CartItem item : cart.getItems())
+                event.units += item.getQuantity();
+        }
+        Transaction txn;
+        synchronized (this) {
+            event.lockWait = System.nanoTime() - start;
+            txn = checkoutLocked(user, cart, idempotencyKey, event);
+        }
+        checkoutTimer.record(start, txn != null);
+        event.commit();
+        return txn;
+    }
+
+    private Transaction checkoutLocked(User user, ShoppingCart cart, String idempotencyKey, CheckoutEvent event) {
+        String key = idempotencyKey == null ? null : user.getUsername() + "|" + idempotencyKey;
+        if (key != null) {
+            Transaction original = checkouts.get(key);
+            if (original != null) {
+                checkoutReplays.increment();
+                event.outcome = "replayed";
+                return original;
+            }
+        }
+        // Charged at the prices of the moment, not those the cart was filled at;
+        // prices only change under this lock
+        cart.reprice();
+        long t = cart.getTotalCents();
+        event.totalCents = t;
+        if (t <= 0) {
+            event.outcome = "empty";
+            return null;
+        }
+        long deduction = System.nanoTime();
+        boolean deducted = applyCartStockDeduction(cart);
+        event.stockDeduction = System.nanoTime() - deduction;
+        if (!deducted) {
+            event.outcome = "out of stock";
+            return null;
+        }
+        event.outcome = "completed";
+        Transaction txn = recordTransaction(user.getUsername(), t, OrderLine.of(cart));
         cart.clear();
-        return true;
+        if (key != null)
+            checkouts.put(key, txn);
+        return txn;
+    }
+
+    long getCartTotal() {
+        return cart.getTotalCents();
+    }
+
+    Transaction recordTransaction(String username, long amount) {
+        return recordTransaction(username, amount, List.of());
+    }
+
+    Transaction recordTransaction(String username, long amount, List<OrderLine> lines) {
+        Transaction txn = appendOrder(username, amount, System.currentTimeMillis(), lines);
+        revenueCents.addAndGet(amount);
+        Journal j = journal;
+        if (j != null)
+            j.order(txn);
+        notifier.publish(ChangeEvent.Type.TRANSACTION_RECORDED, txn);
+        return txn;
+    }
+
+    // Applies an order read back from a journal: takes its lines out of stock
+    // without the checks of a checkout and records it under its original date.
+    // Returns false if a line names a product that is not in the catalog or
+    // more units than it has in stock; those lines change nothing.
+    boolean replayOrder(String username, long amount, long timeMillis, List<OrderLine> lines) {
+        boolean consistent = true;
+        for (OrderLine line : lines) {
+            Product p = findProduct(line.getProductId());
+            if (p == null || line.getQuantity() > p.getStock()) {
+                consistent = false;
+                continue;
+            }
+            p.reduceStock(line.getQuantity());
+            sortIndex.update(p);
+            notifier.publish(ChangeEvent.Type.STOCK_CHANGED, p);
+        }
+        Transaction txn = appendOrder(username, amount, timeMillis, lines);
+        revenueCents.addAndGet(amount);
+        notifier.publish(ChangeEvent.Type.TRANSACTION_RECORDED, txn);
+        return consistent;
+    }
+
+    // The order id is the ledger position, so both are assigned together
+    private Transaction appendOrder(String username, long amount, long timeMillis, List<OrderLine> lines) {
+        synchronized (orders) {
+            Transaction txn = orders.add(username, amount, timeMillis, lines);
+            transactions.add(txn);
+            bestSellers.record(username, amount, timeMillis, lines);
+            return txn;
+        }
+    }
+
+    // A customer's orders, oldest first, read from the order store's index
+    List<Transaction> getOrderHistory(String username) {
+        return orders.ordersOf(username);
+    }
+
+    OrderStore.ProductSales getProductSales(String productId) {
+        return orders.sales(productId);
+    }
+
+    OrderStore.ProductSales getProductSales(String productId, long fromMillis, long toMillis) {
+        return orders.sales(productId, fromMillis, toMillis);
+    }
+
+    List<Transaction> getOrdersWith(String productId) {
+        return orders.ordersWith(productId);
+    }
+
+    // Approximate: see SpaceSaving for the error bounds
+    List<SpaceSaving.Entry> getTopProducts(BestSellers.Period period, int n) {
+        return bestSellers.topProducts(period, n);
     }
 
-    double getCartTotal() {
-        return cart.getTotal();
+    List<SpaceSaving.Entry> getTopCustomers(BestSellers.Period period, int n) {
+        return bestSellers.topCustomers(period, n);
     }
 
-    void recordTransaction(String username, double amount) {
-        transactions.add(new Transaction(username, amount, new java.util.Date()));
+    // Sum of every recorded transaction, maintained as transactions are added
+    long getTotalRevenueCents() {
+        return revenueCents.get();
     }
 
-    private boolean applyCartStockDeduction() {
+    private boolean applyCartStockDeduction(ShoppingCart cart) {
         if (cart.getItems().stream().anyMatch(item -> item.getQuantity() > item.getProduct().getStock()))
             return false;
-        cart.getItems().forEach(item -> item.getProduct().reduceStock(item.getQuantity()));
+        for (CartItem item : cart.getItems()) {
+            item.getProduct().reduceStock(item.getQuantity());
+            sortIndex.update(item.getProduct());
+            notifier.publish(ChangeEvent.Type.STOCK_CHANGED, item.getProduct());
+        }
         return true;
     }
 
     void showPaymentHistory() {
-        if (transactions.isEmpty()) {
+        List<Transaction> ledger = transactions.snapshot();
+        if (ledger.isEmpty()) {
             System.out.println("\n--- PAYMENT HISTORY ---\nNo transactions recorded.");
             return;
         }
         System.out.println("\n--- PAYMENT HISTORY ---");
-        transactions.forEach(System.out::println);
-        double totalRevenue = transactions.stream().mapToDouble(Transaction::getAmount).sum();
-        System.out.println("\nTotal Revenue: $" + String.format("%.2f", totalRevenue));
+        ledger.forEach(System.out::println);
+        long totalRevenue = 0;
+        for (Transaction t : ledger)
+            totalRevenue += t.getAmountCents();
+        System.out.println("\nTotal Revenue: $" + Money.format(totalRevenue));
     }
 
     void showUserPurchaseHistory(String username) {
-        var userTrans = transactions.stream().filter(t -> t.getUsername().equals(username)).toList();
+        List<Transaction> userTrans = orders.ordersOf(username);
         if (userTrans.isEmpty()) {
             System.out.println("\nNo purchases by " + username);
             return;
         }
         System.out.println("\n--- " + username.toUpperCase() + "'S PURCHASE HISTORY ---");
-        userTrans.forEach(System.out::println);
-        double total = userTrans.stream().mapToDouble(Transaction::getAmount).sum();
-        System.out.println("Total Spent: $" + String.format("%.2f", total));
+        long total = 0;
+        for (Transaction t : userTrans) {
+            System.out.println("#" + t.getOrderId() + " " + t);
+            for (OrderLine line : t.getLines())
+                System.out.println("    " + line.getProductId() + " x" + line.getQuantity() + " @ $"
+                        + Money.format(line.getUnitPriceCents()));
+            total += t.getAmountCents();
+        }
+        System.out.println("Total Spent: $" + Money.format(total));
+    }
+
+    void showProductSales(String productId) {
+        OrderStore.ProductSales sales = orders.sales(productId);
+        if (sales.getOrders() == 0) {
+            System.out.println("\nNo sales of " + productId);
+            return;
+        }
+        System.out.println("\n--- SALES OF " + productId + " ---");
+        System.out.println("Orders: " + sales.getOrders() + " | Units: " + sales.getUnits() + " | Revenue: $"
+                + Money.format(sales.getRevenueCents()));
+    }
+
+    void showBestSellers() {
+        for (BestSellers.Period period : BestSellers.Period.values()) {
+            System.out.println("\n--- BEST SELLERS: " + period.toString().toUpperCase() + " ---");
+            List<SpaceSaving.Entry> top = bestSellers.topProducts(period, 10);
+            if (top.isEmpty() && bestSellers.topCustomers(period, 1).isEmpty()) {
+                System.out.println("No sales.");
+                continue;
+            }
+            System.out.println("Products:");
+            for (SpaceSaving.Entry e : top) {
+                Product p = findProduct(e.getKey());
+                System.out.println(e.getKey() + " " + (p == null ? "(removed)" : p.getName()) + " | Units: "
+                        + e.getCount() + (e.getError() > 0 ? " (at most " + e.getError() + " too many)" : ""));
+            }
+            System.out.println("Customers:");
+            for (SpaceSaving.Entry e : bestSellers.topCustomers(period, 10))
+                System.out.println(e.getKey() + " | Spent: $" + Money.format(e.getCount())
+                        + (e.getError() > 0 ? " (at most $" + Money.format(e.getError()) + " too much)" : ""));
+        }
     }
 }
 
@@ -520,6 +1306,11 @@ public class ECommerceApp {
     }
 
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            int status = BatchRunner.run(args);
+            Log.flush();
+            System.exit(status);
+        }
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
         } catch (Exception ignored) {
@@ -532,7 +1323,7 @@ public class ECommerceApp {
         while (true) {
             System.out.println("\n--- ADMIN MENU ---");
             System.out.println(
-                    "1. View Products\n2. Add Product\n3. Remove Product\n4. View Users\n5. Remove User\n6. View Payment History\n7. View User Purchase History\n8. Logout");
+                    "1. View Products\n2. Add Product\n3. Remove Product\n4. View Users\n5. Remove User\n6. View Payment History\n7. View User Purchase History\n8. View Product Sales\n9. View Best Sellers\n10. Logout");
             System.out.print("Choice: ");
             int choice = ECommerceApp.getValidChoice(sc);
             if (choice == -1) {
@@ -553,11 +1344,13 @@ public class ECommerceApp {
                 String name = sc.nextLine();
                 try {
                     System.out.print("Price: ");
-                    double price = sc.nextDouble();
+                    long price = Money.parse(sc.next());
                     System.out.print("Stock: ");
                     int stock = sc.nextInt();
                     sc.nextLine();
-                    if (sys.addProduct(id, name, price, stock))
+                    if (price < 0)
+                        System.out.println("Price cannot be negative!");
+                    else if (sys.addProduct(id, name, price, stock))
                         System.out.println("Product added successfully!");
                     else
                         System.out.println("Product ID already exists!");
@@ -584,10 +1377,15 @@ public class ECommerceApp {
             else if (choice == 7) {
                 System.out.print("Username to check: ");
                 sys.showUserPurchaseHistory(sc.nextLine());
-            } else if (choice == 8)
+            } else if (choice == 8) {
+                System.out.print("Product ID to check: ");
+                sys.showProductSales(sc.nextLine());
+            } else if (choice == 9)
+                sys.showBestSellers();
+            else if (choice == 10)
                 break;
             else {
-                System.out.println("Invalid choice! Please select 1-8.");
+                System.out.println("Invalid choice! Please select 1-10.");
                 invalidAttempts++;
                 if (invalidAttempts >= 3) {
                     System.out.println("\nWARNING: Too many invalid attempts. Logging out for security.");
@@ -633,11 +1431,11 @@ public class ECommerceApp {
             } else if (choice == 3)
                 sys.viewCart();
             else if (choice == 4) {
-                double total = sys.getCartTotal();
+                long total = sys.getCartTotal();
                 if (total <= 0) {
                     System.out.println("Cart is empty!");
                 } else {
-                    boolean paid = sys.processPayment(total, sc);
+                    boolean paid = sys.processPayment(sc);
                     if (paid)
                         System.out.println("Transaction completed!");
                     else
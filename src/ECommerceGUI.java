@@ -1,21 +1,20 @@
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
 import java.io.File;
 import java.util.List;
-import javax.imageio.ImageIO;
 
 public class ECommerceGUI extends JFrame {
   private final EcommerceSystem system = new EcommerceSystem();
   private User activeUser;
-  private BufferedImage loginBackground;
-  private BufferedImage dashboardBackground;
-  private BufferedImage currentBackground;
+  private BackgroundImage loginBackground;
+  private BackgroundImage dashboardBackground;
+  private BackgroundImage currentBackground;
 
   // Dark Glassmorphism Theme
   private static final Color ACCENT = new Color(99, 102, 241);
@@ -28,63 +27,295 @@ public class ECommerceGUI extends JFrame {
   private static final Font TITLE_FONT = new Font("Segoe UI", Font.BOLD, 26);
   private static final Font SUBTITLE_FONT = new Font("Segoe UI", Font.BOLD, 18);
   private static final Font BODY_FONT = new Font("Segoe UI", Font.PLAIN, 13);
+  private static final Log.Event FIRST_FRAME = Log.event("startup.first_frame", Log.Level.INFO);
+  private static final Log.Event READY = Log.event("startup.ready", Log.Level.INFO);
+  private static final Log.Event STARTUP_FAILED = Log.event("startup.load_failed", Log.Level.ERROR);
+  private static final Log.Event IMAGES_FAILED = Log.event("startup.images_failed", Log.Level.WARN);
+
+  // Shared paints for the glass shapes, so painting does not allocate them
+  private static final Color GLASS_FILL = new Color(20, 20, 30, 180);
+  private static final Color GLASS_SHINE = new Color(255, 255, 255, 15);
+  private static final Color BUTTON_SHINE = new Color(255, 255, 255, 60);
+  private static final Color CLEAR_WHITE = new Color(255, 255, 255, 0);
+  private static final Color FIELD_FILL = new Color(0, 0, 0, 80);
+  private static final Color OUTLINE_FILL = new Color(0, 0, 0, 60);
+  private static final Color OUTLINE_FILL_ARMED = new Color(0, 0, 0, 100);
+  private static final Color OUTLINE_BORDER = new Color(99, 102, 241, 80);
+  private static final BasicStroke HAIRLINE = new BasicStroke(1f);
 
   private final CardLayout cardLayout = new CardLayout();
   private final JPanel cardPanel = new JPanel(cardLayout);
 
   private class GlassPanel extends JPanel {
     private final int radius;
+    private final NineSlice body;
+    private final Shine shine;
 
     public GlassPanel(int radius) {
       this.radius = radius;
+      this.body = shapeSlice(radius, GLASS_FILL, GLASS_BORDER);
+      this.shine = new Shine(radius, GLASS_SHINE);
       setOpaque(false);
     }
 
     @Override
     protected void paintComponent(Graphics g) {
-      Graphics2D g2 = (Graphics2D) g.create();
-      g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+      long start = EdtMonitor.paintStart();
+      // Frosted glass background - dark theme, with border glow
+      paintShape(g, body, 0, 0, getWidth(), getHeight(), radius, GLASS_FILL, GLASS_BORDER);
+      // Subtle highlight at top
+      shine.paint(g, 0, 0, getWidth(), getHeight() / 3);
+      super.paintComponent(g);
+      EdtMonitor.paintDone("GlassPanel", start);
+    }
+  }
 
-      // Frosted glass background - dark theme
-      g2.setColor(new Color(20, 20, 30, 180));
-      g2.fillRoundRect(0, 0, getWidth(), getHeight(), radius, radius);
+  // Rounded rectangle filled with fill and outlined with border (if not null),
+  // pre-rendered once per arc and colours
+  private static NineSlice shapeSlice(int arc, Color fill, Color border) {
+    int inset = arc / 2 + 2;
+    String key = "shape:" + arc + ":" + fill.getRGB() + ":" + (border == null ? "-" : border.getRGB());
+    return NineSlice.of(key, 2 * inset + 8, inset, (g2, size) -> drawShape(g2, size, size, arc, fill, border));
+  }
 
-      // Subtle highlight at top
-      GradientPaint highlight = new GradientPaint(0, 0, new Color(255, 255, 255, 15),
-          0, getHeight() / 3, new Color(255, 255, 255, 0));
-      g2.setPaint(highlight);
-      g2.fillRoundRect(0, 0, getWidth(), getHeight() / 3, radius, radius);
+  // Rounded rectangle with a vertical fade from top to transparent over its
+  // whole height. A gradient along the stretch direction cannot be nine-sliced
+  // without changing the fade, so it is rendered at the size it is painted at
+  // and only rendered again when that size changes.
+  private static final class Shine {
+    private final int arc;
+    private final Color top;
+    private BufferedImage image;
+
+    Shine(int arc, Color top) {
+      this.arc = arc;
+      this.top = top;
+    }
+
+    void paint(Graphics g, int x, int y, int w, int h) {
+      if (w <= 0 || h <= 0)
+        return;
+      if (image == null || image.getWidth() != w || image.getHeight() != h) {
+        image = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g2 = image.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        drawShine(g2, 0, 0, w, h, arc, top);
+        g2.dispose();
+      }
+      g.drawImage(image, x, y, null);
+    }
+  }
 
-      // Border glow
-      g2.setColor(new Color(255, 255, 255, 25));
-      g2.setStroke(new BasicStroke(1f));
-      g2.drawRoundRect(0, 0, getWidth() - 1, getHeight() - 1, radius, radius);
+  private static void paintShape(Graphics g, NineSlice slice, int x, int y, int w, int h, int arc, Color fill,
+      Color border) {
+    if (slice.fits(w, h)) {
+      slice.paint(g, x, y, w, h);
+      return;
+    }
+    Graphics2D g2 = (Graphics2D) g.create();
+    g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    g2.translate(x, y);
+    drawShape(g2, w, h, arc, fill, border);
+    g2.dispose();
+  }
 
-      g2.dispose();
-      super.paintComponent(g);
+  private static void drawShape(Graphics2D g2, int w, int h, int arc, Color fill, Color border) {
+    g2.setColor(fill);
+    g2.fillRoundRect(0, 0, w, h, arc, arc);
+    if (border != null) {
+      g2.setColor(border);
+      g2.setStroke(HAIRLINE);
+      g2.drawRoundRect(0, 0, w - 1, h - 1, arc, arc);
     }
   }
 
-  private final DefaultTableModel productModel = new DefaultTableModel(new String[] { "ID", "Name", "Price", "Stock" },
-      0) {
+  private static void drawShine(Graphics2D g2, int x, int y, int w, int h, int arc, Color top) {
+    g2.setPaint(new GradientPaint(x, y, top, x, y + h, CLEAR_WHITE));
+    g2.fillRoundRect(x, y, w, h, arc, arc);
+  }
+
+  // Content pane with the liquid UI background. The background image and the
+  // gradient overlays are composited once per window size and background image
+  // into a VolatileImage and only blitted on repaint. The image itself is scaled
+  // to the window size off the EDT once resizing settles; until then the nearest
+  // ready copy is stretched.
+  private class LiquidBackgroundPane extends JPanel {
+    private VolatileImage cache;
+    private BufferedImage cachedBackground;
+    private final Timer rescale = new Timer(150, e -> rescaleBackground());
+    private SwingWorker<Void, Void> rescaling;
+
+    LiquidBackgroundPane() {
+      super(new BorderLayout());
+      rescale.setRepeats(false);
+    }
+
     @Override
-    public boolean isCellEditable(int row, int column) {
-      return false;
+    protected void paintComponent(Graphics g) {
+      long start = EdtMonitor.paintStart();
+      paintBackground(g);
+      EdtMonitor.paintDone("content pane", start);
+    }
+
+    private void paintBackground(Graphics g) {
+      if (!firstFramePainted) {
+        firstFramePainted = true;
+        firstFrameMillis = millisSinceLaunch();
+        FIRST_FRAME.log("millis", firstFrameMillis);
+      }
+      int w = getWidth();
+      int h = getHeight();
+      GraphicsConfiguration gc = getGraphicsConfiguration();
+      if (w <= 0 || h <= 0 || gc == null) {
+        super.paintComponent(g);
+        return;
+      }
+      BufferedImage background = null;
+      if (currentBackground != null) {
+        background = currentBackground.scaledTo(w, h);
+        if (background == null) {
+          background = currentBackground.anySize();
+          rescale.restart();
+        }
+      }
+      do {
+        boolean stale = cache == null || cache.getWidth() != w || cache.getHeight() != h
+            || cachedBackground != background;
+        if (!stale) {
+          int status = cache.validate(gc);
+          if (status == VolatileImage.IMAGE_INCOMPATIBLE)
+            stale = true;
+          else if (status == VolatileImage.IMAGE_RESTORED)
+            render();
+        }
+        if (stale) {
+          if (cache != null)
+            cache.flush();
+          cache = gc.createCompatibleVolatileImage(w, h, Transparency.OPAQUE);
+          cachedBackground = background;
+          render();
+        }
+        g.drawImage(cache, 0, 0, null);
+      } while (cache.contentsLost());
+    }
+
+    private void rescaleBackground() {
+      BackgroundImage image = currentBackground;
+      int w = getWidth();
+      int h = getHeight();
+      if (image == null || w <= 0 || h <= 0 || image.scaledTo(w, h) != null)
+        return;
+      if (rescaling != null && !rescaling.isDone()) {
+        // Try again once the running scale is finished
+        rescale.restart();
+        return;
+      }
+      rescaling = new SwingWorker<Void, Void>() {
+        @Override
+        protected Void doInBackground() {
+          image.scale(w, h);
+          return null;
+        }
+
+        @Override
+        protected void done() {
+          repaint();
+        }
+      };
+      rescaling.execute();
+    }
+
+    private void render() {
+      Graphics2D g2 = cache.createGraphics();
+      int w = cache.getWidth();
+      int h = cache.getHeight();
+      g2.setColor(getBackground());
+      g2.fillRect(0, 0, w, h);
+      paintLiquidBackground(g2, w, h);
+      g2.dispose();
     }
-  };
+
+    private void paintLiquidBackground(Graphics2D g2, int w, int h) {
+      g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+      g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+
+      // Draw background image, 1:1 once the scaled copy is ready
+      if (cachedBackground != null) {
+        if (cachedBackground.getWidth() == w && cachedBackground.getHeight() == h)
+          g2.drawImage(cachedBackground, 0, 0, null);
+        else
+          g2.drawImage(cachedBackground, 0, 0, w, h, null);
+      }
+
+      // Liquid UI - multiple gradient overlays for fluid glass effect
+      // Base transparency layer - dark theme
+      g2.setColor(new Color(0, 0, 0, 140));
+      g2.fillRect(0, 0, w, h);
+
+      // Liquid gradient blob 1 - top left
+      RadialGradientPaint liquid1 = new RadialGradientPaint(
+          w * 0.2f, h * 0.3f, w * 0.6f,
+          new float[] { 0f, 0.5f, 1f },
+          new Color[] { new Color(99, 102, 241, 40), new Color(79, 70, 229, 20), new Color(0, 0, 0, 0) });
+      g2.setPaint(liquid1);
+      g2.fillRect(0, 0, w, h);
+
+      // Liquid gradient blob 2 - bottom right
+      RadialGradientPaint liquid2 = new RadialGradientPaint(
+          w * 0.8f, h * 0.7f, w * 0.5f,
+          new float[] { 0f, 0.5f, 1f },
+          new Color[] { new Color(139, 92, 246, 35), new Color(99, 102, 241, 15), new Color(0, 0, 0, 0) });
+      g2.setPaint(liquid2);
+      g2.fillRect(0, 0, w, h);
+
+      // Liquid gradient blob 3 - center glow
+      RadialGradientPaint liquid3 = new RadialGradientPaint(
+          w * 0.5f, h * 0.5f, w * 0.7f,
+          new float[] { 0f, 0.6f, 1f },
+          new Color[] { new Color(255, 255, 255, 8), new Color(255, 255, 255, 3), new Color(0, 0, 0, 0) });
+      g2.setPaint(liquid3);
+      g2.fillRect(0, 0, w, h);
+
+      // Top edge highlight - liquid reflection
+      GradientPaint topGlow = new GradientPaint(
+          0, 0, new Color(255, 255, 255, 25),
+          0, h * 0.15f, new Color(255, 255, 255, 0));
+      g2.setPaint(topGlow);
+      g2.fillRect(0, 0, w, (int) (h * 0.15f));
+    }
+  }
+
+  private final ProductTableModel productModel = new ProductTableModel(system);
 
   private JTable customerTable;
+  // Model of the customer table while a search is active
+  private ProductTableModel searchModel;
+  private JLabel searchStatus;
+  private static final int SEARCH_LIMIT = 1000;
   private JTable adminTable;
   private JTextArea cartArea;
   private JLabel totalLabel;
   private JLabel welcomeLabel;
   private JTextArea userArea;
-  private JTextArea transactionArea;
+  private final TransactionTableModel transactionModel = new TransactionTableModel(system, 500);
+  private JLabel transactionPageLabel;
+  private JLabel revenueLabel;
+  private JTextArea bestSellerArea;
+  private BestSellers.Period bestSellerPeriod = BestSellers.Period.ALL_TIME;
   private JLabel authMessage;
+  // Identifies the current cart contents at checkout; renewed whenever the cart changes
+  private String checkoutKey = java.util.UUID.randomUUID().toString();
+
+  // Sign-in and registration stay disabled until the data has been loaded
+  private JButton signInBtn;
+  private JButton createAccountBtn;
+  private boolean dataLoaded;
+  private boolean customerPanelBuilt;
+  private boolean adminPanelBuilt;
+  private boolean firstFramePainted;
+  private long firstFrameMillis;
 
   public ECommerceGUI() {
-    system.loadData();
-    loadBackgroundImage();
     setTitle("E-Commerce Management");
     setSize(1200, 780);
     setLocationRelativeTo(null);
@@ -92,79 +323,87 @@ public class ECommerceGUI extends JFrame {
     addWindowListener(new WindowAdapter() {
       @Override
       public void windowClosing(WindowEvent e) {
-        system.saveData();
+        // Saving before the load finished would overwrite the data files with a partial catalog
+        if (dataLoaded)
+          system.saveData();
+        system.closeJournal();
         dispose();
       }
     });
 
+    // Customer and admin cards are built the first time they are shown
     cardPanel.add(buildWelcomePanel(), "WELCOME");
     cardPanel.add(buildLoginPanel(), "LOGIN");
     cardPanel.add(buildRegisterPanel(), "REGISTER");
-    cardPanel.add(buildCustomerPanel(), "CUSTOMER");
-    cardPanel.add(buildAdminPanel(), "ADMIN");
     cardPanel.setOpaque(false);
 
     // Main content pane with liquid UI background
-    JPanel contentPane = new JPanel(new BorderLayout()) {
-      @Override
-      protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        Graphics2D g2 = (Graphics2D) g.create();
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-
-        int w = getWidth();
-        int h = getHeight();
-
-        // Draw background image
-        if (currentBackground != null) {
-          g2.drawImage(currentBackground, 0, 0, w, h, null);
-        }
-
-        // Liquid UI - multiple gradient overlays for fluid glass effect
-        // Base transparency layer - dark theme
-        g2.setColor(new Color(0, 0, 0, 140));
-        g2.fillRect(0, 0, w, h);
-
-        // Liquid gradient blob 1 - top left
-        RadialGradientPaint liquid1 = new RadialGradientPaint(
-            w * 0.2f, h * 0.3f, w * 0.6f,
-            new float[] { 0f, 0.5f, 1f },
-            new Color[] { new Color(99, 102, 241, 40), new Color(79, 70, 229, 20), new Color(0, 0, 0, 0) });
-        g2.setPaint(liquid1);
-        g2.fillRect(0, 0, w, h);
+    JPanel contentPane = new LiquidBackgroundPane();
+    contentPane.add(cardPanel);
+    setContentPane(contentPane);
 
-        // Liquid gradient blob 2 - bottom right
-        RadialGradientPaint liquid2 = new RadialGradientPaint(
-            w * 0.8f, h * 0.7f, w * 0.5f,
-            new float[] { 0f, 0.5f, 1f },
-            new Color[] { new Color(139, 92, 246, 35), new Color(99, 102, 241, 15), new Color(0, 0, 0, 0) });
-        g2.setPaint(liquid2);
-        g2.fillRect(0, 0, w, h);
+    installEdtMonitor();
+    system.getMetrics().expose("vendora:type=EcommerceSystem");
+    showWelcome();
+    loadInBackground();
+  }
 
-        // Liquid gradient blob 3 - center glow
-        RadialGradientPaint liquid3 = new RadialGradientPaint(
-            w * 0.5f, h * 0.5f, w * 0.7f,
-            new float[] { 0f, 0.6f, 1f },
-            new Color[] { new Color(255, 255, 255, 8), new Color(255, 255, 255, 3), new Color(0, 0, 0, 0) });
-        g2.setPaint(liquid3);
-        g2.fillRect(0, 0, w, h);
+  // EDT latency, paint times and stalls; Ctrl+Shift+M toggles the overlay
+  private void installEdtMonitor() {
+    JComponent overlay = EdtMonitor.install().overlay();
+    setGlassPane(overlay);
+    KeyStroke toggle = KeyStroke.getKeyStroke(java.awt.event.KeyEvent.VK_M,
+        java.awt.event.InputEvent.CTRL_DOWN_MASK | java.awt.event.InputEvent.SHIFT_DOWN_MASK);
+    getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(toggle, "toggleEdtMonitor");
+    getRootPane().getActionMap().put("toggleEdtMonitor", new AbstractAction() {
+      @Override
+      public void actionPerformed(java.awt.event.ActionEvent e) {
+        overlay.setVisible(!overlay.isVisible());
+      }
+    });
+  }
 
-        // Top edge highlight - liquid reflection
-        GradientPaint topGlow = new GradientPaint(
-            0, 0, new Color(255, 255, 255, 25),
-            0, h * 0.15f, new Color(255, 255, 255, 0));
-        g2.setPaint(topGlow);
-        g2.fillRect(0, 0, w, (int) (h * 0.15f));
+  // Reads the data files and decodes the background images off the EDT while
+  // the welcome card is already on screen
+  private void loadInBackground() {
+    signInBtn.setEnabled(false);
+    createAccountBtn.setEnabled(false);
+    new SwingWorker<Void, Void>() {
+      @Override
+      protected Void doInBackground() {
+        system.loadData();
+        system.openJournal();
+        loadBackgroundImage();
+        return null;
+      }
 
-        g2.dispose();
+      @Override
+      protected void done() {
+        try {
+          get();
+        } catch (Exception e) {
+          STARTUP_FAILED.log("error", e.getMessage());
+        }
+        dataLoaded = true;
+        refreshProducts();
+        refreshUsers();
+        refreshTransactions();
+        // From here on the views follow the system's change events instead of re-reading it
+        system.addChangeListener(ECommerceGUI.this::applyChanges);
+        signInBtn.setEnabled(true);
+        createAccountBtn.setEnabled(true);
+        if (currentBackground == null)
+          currentBackground = loginBackground;
+        getContentPane().repaint();
+        // Have the login background scaled to the window now rather than when a paint asks
+        ((LiquidBackgroundPane) getContentPane()).rescaleBackground();
+        READY.log("millis", millisSinceLaunch(), "firstFrameMillis", firstFrameMillis);
       }
-    };
-    contentPane.add(cardPanel);
-    setContentPane(contentPane);
+    }.execute();
+  }
 
-    refreshProducts();
-    showWelcome();
+  private static long millisSinceLaunch() {
+    return System.currentTimeMillis() - java.lang.management.ManagementFactory.getRuntimeMXBean().getStartTime();
   }
 
   private void loadBackgroundImage() {
@@ -174,21 +413,15 @@ public class ECommerceGUI extends JFrame {
       if (!loginFile.exists()) {
         loginFile = new File("src/Images/login.jfif");
       }
-      if (loginFile.exists()) {
-        loginBackground = ImageIO.read(loginFile);
-      }
+      loginBackground = BackgroundImage.load(loginFile);
 
       File dashboardFile = new File("Images/logic.jfif");
       if (!dashboardFile.exists()) {
         dashboardFile = new File("src/Images/logic.jfif");
       }
-      if (dashboardFile.exists()) {
-        dashboardBackground = ImageIO.read(dashboardFile);
-      }
-      // Default to login background initially
-      currentBackground = loginBackground;
+      dashboardBackground = BackgroundImage.load(dashboardFile);
     } catch (Exception e) {
-      System.out.println("Could not load background images: " + e.getMessage());
+      IMAGES_FAILED.log("error", e.getMessage());
     }
   }
 
@@ -389,6 +622,7 @@ public class ECommerceGUI extends JFrame {
     form.add(Box.createVerticalStrut(25));
 
     JButton loginBtn = glassButton("Sign In  →");
+    signInBtn = loginBtn;
     loginBtn.setFont(new Font("Segoe UI", Font.BOLD, 16));
     loginBtn.setAlignmentX(Component.CENTER_ALIGNMENT);
     Dimension btnSize = new Dimension(320, 48);
@@ -445,18 +679,14 @@ public class ECommerceGUI extends JFrame {
         return;
       }
       activeUser = logged;
-      welcomeLabel.setText("Hello, " + activeUser.getUsername() + " (" + activeUser.getType() + ")");
       loginMessage.setText(" ");
       usernameField.setText("Username");
       usernameField.setForeground(MUTED);
       passwordField.setText("Password");
       passwordField.setEchoChar((char) 0);
       passwordField.setForeground(MUTED);
-      refreshProducts();
       refreshCart();
       if (activeUser instanceof Admin) {
-        refreshUsers();
-        refreshTransactions();
         showAdmin();
       } else {
         showCustomer();
@@ -584,6 +814,7 @@ public class ECommerceGUI extends JFrame {
     form.add(Box.createVerticalStrut(25));
 
     JButton registerBtn = glassButton("Create Account  →");
+    createAccountBtn = registerBtn;
     registerBtn.setFont(new Font("Segoe UI", Font.BOLD, 16));
     registerBtn.setAlignmentX(Component.CENTER_ALIGNMENT);
     Dimension btnSize = new Dimension(320, 48);
@@ -673,11 +904,50 @@ public class ECommerceGUI extends JFrame {
     welcomeLabel.setFont(SUBTITLE_FONT);
     welcomeLabel.setForeground(TEXT);
     welcomeLabel.setBorder(new EmptyBorder(12, 16, 12, 16));
-    panel.add(welcomeLabel, BorderLayout.NORTH);
 
-    customerTable = new JTable(productModel);
+    JTextField searchField = styledGlassField();
+    searchField.setColumns(22);
+    searchField.setToolTipText("Search products by name");
+    searchStatus = new JLabel(" ");
+    searchStatus.setFont(BODY_FONT);
+    searchStatus.setForeground(MUTED);
+    JPanel searchBar = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 10));
+    searchBar.setOpaque(false);
+    searchBar.add(searchStatus);
+    searchBar.add(searchField);
+
+    JPanel header = new JPanel(new BorderLayout());
+    header.setOpaque(false);
+    header.add(welcomeLabel, BorderLayout.WEST);
+    header.add(searchBar, BorderLayout.EAST);
+    panel.add(header, BorderLayout.NORTH);
+
+    // Search once typing pauses rather than on every keystroke
+    Timer searchDelay = new Timer(150, e -> applySearch(searchField.getText()));
+    searchDelay.setRepeats(false);
+    searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+      @Override
+      public void insertUpdate(javax.swing.event.DocumentEvent e) {
+        searchDelay.restart();
+      }
+
+      @Override
+      public void removeUpdate(javax.swing.event.DocumentEvent e) {
+        searchDelay.restart();
+      }
+
+      @Override
+      public void changedUpdate(javax.swing.event.DocumentEvent e) {
+      }
+    });
+    searchField.addActionListener(e -> {
+      searchDelay.stop();
+      applySearch(searchField.getText());
+    });
+
+    customerTable = timedTable(productModel, "product table");
     styleGlassTable(customerTable);
-    JScrollPane productScroll = styledGlassScroll(customerTable);
+    JScrollPane productScroll = productScroll(customerTable);
 
     cartArea = new JTextArea();
     cartArea.setEditable(false);
@@ -706,6 +976,7 @@ public class ECommerceGUI extends JFrame {
     JSpinner qtySpinner = new JSpinner(new SpinnerNumberModel(1, 1, 100, 1));
     qtySpinner.setFont(BODY_FONT);
     JButton addBtn = glassButton("Add to Cart");
+    JButton importBtn = glassButtonOutline("Import List");
     JButton checkoutBtn = glassButtonOutline("Checkout");
     JButton logoutBtn = glassButtonOutline("Logout");
     totalLabel = new JLabel("Total: $0.00");
@@ -715,6 +986,7 @@ public class ECommerceGUI extends JFrame {
     actions.add(qtyLabel);
     actions.add(qtySpinner);
     actions.add(addBtn);
+    actions.add(importBtn);
     actions.add(checkoutBtn);
     actions.add(totalLabel);
     actions.add(logoutBtn);
@@ -727,18 +999,20 @@ public class ECommerceGUI extends JFrame {
         JOptionPane.showMessageDialog(this, "Select a product first.");
         return;
       }
-      String id = productModel.getValueAt(row, 0).toString();
+      String id = ((ProductTableModel) customerTable.getModel()).getProductAt(row).getId();
       int qty = (int) qtySpinner.getValue();
       if (system.addProductToCart(id, qty)) {
-        refreshProducts();
+        checkoutKey = java.util.UUID.randomUUID().toString();
         refreshCart();
       } else {
         JOptionPane.showMessageDialog(this, "Product not found or insufficient stock.");
       }
     });
 
+    importBtn.addActionListener(e -> importPurchaseList());
+
     checkoutBtn.addActionListener(e -> {
-      double total = system.getCartTotal();
+      long total = system.getCartTotal();
       if (activeUser == null) {
         JOptionPane.showMessageDialog(this, "Please login before checkout.");
         return;
@@ -747,15 +1021,13 @@ public class ECommerceGUI extends JFrame {
         JOptionPane.showMessageDialog(this, "Cart is empty.");
         return;
       }
-      boolean paid = system.processPayment(total);
+      boolean paid = system.processPayment(checkoutKey) != null;
       if (!paid) {
         JOptionPane.showMessageDialog(this, "Checkout failed. Please refresh products and try again.");
-        refreshProducts();
         return;
       }
       system.saveData();
       refreshCart();
-      refreshProducts();
       JOptionPane.showMessageDialog(this, "Payment processed. Thank you!");
     });
 
@@ -764,6 +1036,52 @@ public class ECommerceGUI extends JFrame {
     return panel;
   }
 
+  // Shows the products matching query in the customer table, or the whole
+  // catalog when query is blank
+  private void applySearch(String query) {
+    if (query.isBlank()) {
+      searchModel = null;
+      customerTable.setModel(productModel);
+      searchStatus.setText(" ");
+      return;
+    }
+    searchModel = new ProductTableModel(system, query, SEARCH_LIMIT);
+    customerTable.setModel(searchModel);
+    int n = searchModel.getRowCount();
+    if (n >= SEARCH_LIMIT)
+      searchStatus.setText("First " + SEARCH_LIMIT + " matches");
+    else
+      searchStatus.setText(n + (n == 1 ? " match" : " matches"));
+  }
+
+  // Bulk add from a pasted purchase list; the whole list is applied or rejected at once
+  private void importPurchaseList() {
+    JTextArea input = new JTextArea(14, 28);
+    input.setFont(BODY_FONT);
+    JScrollPane scroll = new JScrollPane(input);
+    scroll.setBorder(BorderFactory.createTitledBorder("One \"productId,qty\" per line"));
+    int choice = JOptionPane.showConfirmDialog(this, scroll, "Import Purchase List", JOptionPane.OK_CANCEL_OPTION,
+        JOptionPane.PLAIN_MESSAGE);
+    if (choice != JOptionPane.OK_OPTION)
+      return;
+    List<String> errors = new java.util.ArrayList<>();
+    List<PurchaseLine> lines = PurchaseLine.parse(input.getText(), errors);
+    if (errors.isEmpty())
+      errors = system.addProductsToCart(lines);
+    if (!errors.isEmpty()) {
+      int shown = Math.min(errors.size(), 10);
+      StringBuilder sb = new StringBuilder("Nothing was added to the cart:\n");
+      for (int i = 0; i < shown; i++)
+        sb.append(errors.get(i)).append("\n");
+      if (errors.size() > shown)
+        sb.append("... and ").append(errors.size() - shown).append(" more");
+      JOptionPane.showMessageDialog(this, sb.toString());
+      return;
+    }
+    checkoutKey = java.util.UUID.randomUUID().toString();
+    refreshCart();
+  }
+
   private JPanel buildAdminPanel() {
     JPanel panel = new JPanel(new BorderLayout());
     panel.setOpaque(false);
@@ -774,9 +1092,9 @@ public class ECommerceGUI extends JFrame {
     title.setBorder(new EmptyBorder(12, 16, 12, 16));
     panel.add(title, BorderLayout.NORTH);
 
-    adminTable = new JTable(productModel);
+    adminTable = timedTable(productModel, "product table");
     styleGlassTable(adminTable);
-    JScrollPane productScroll = styledGlassScroll(adminTable);
+    JScrollPane productScroll = productScroll(adminTable);
 
     JPanel right = new JPanel();
     right.setOpaque(false);
@@ -809,8 +1127,8 @@ public class ECommerceGUI extends JFrame {
     userArea = styledGlassArea();
     JScrollPane userScroll = styledGlassInfoPane(userArea, "Users");
 
-    transactionArea = styledGlassArea();
-    JScrollPane txnScroll = styledGlassInfoPane(transactionArea, "Transactions");
+    JPanel txnScroll = buildTransactionPane();
+    JPanel bestSellerPane = buildBestSellerPane();
 
     GlassPanel removeUserPanel = new GlassPanel(12);
     removeUserPanel.setLayout(new FlowLayout(FlowLayout.LEFT, 8, 8));
@@ -838,6 +1156,8 @@ public class ECommerceGUI extends JFrame {
     right.add(removeUserPanel);
     right.add(Box.createVerticalStrut(8));
     right.add(txnScroll);
+    right.add(Box.createVerticalStrut(8));
+    right.add(bestSellerPane);
     right.add(Box.createVerticalStrut(10));
     right.add(refreshBtn);
     right.add(Box.createVerticalStrut(6));
@@ -853,11 +1173,12 @@ public class ECommerceGUI extends JFrame {
       try {
         String id = idField.getText().trim();
         String name = nameField.getText().trim();
-        double price = Double.parseDouble(priceField.getText().trim());
+        long price = Money.parse(priceField.getText());
         int stock = Integer.parseInt(stockField.getText().trim());
-        if (system.addProduct(id, name, price, stock)) {
+        if (price < 0) {
+          JOptionPane.showMessageDialog(this, "Price cannot be negative.");
+        } else if (system.addProduct(id, name, price, stock)) {
           JOptionPane.showMessageDialog(this, "Product added.");
-          refreshProducts();
           system.saveData();
         } else {
           JOptionPane.showMessageDialog(this, "ID already exists.");
@@ -873,10 +1194,9 @@ public class ECommerceGUI extends JFrame {
         JOptionPane.showMessageDialog(this, "Select a product first.");
         return;
       }
-      String id = productModel.getValueAt(row, 0).toString();
+      String id = productModel.getProductAt(row).getId();
       if (system.removeProduct(id)) {
         JOptionPane.showMessageDialog(this, "Product removed.");
-        refreshProducts();
         system.saveData();
       }
     });
@@ -895,7 +1215,6 @@ public class ECommerceGUI extends JFrame {
       if (ok) {
         JOptionPane.showMessageDialog(this, "User removed successfully.");
         removeUserField.setText("");
-        refreshUsers();
         system.saveData();
       } else {
         JOptionPane.showMessageDialog(this, "User not found or cannot remove admin.");
@@ -906,6 +1225,7 @@ public class ECommerceGUI extends JFrame {
       refreshProducts();
       refreshUsers();
       refreshTransactions();
+      refreshBestSellers();
     });
 
     logoutBtn.addActionListener(e -> logout());
@@ -914,10 +1234,58 @@ public class ECommerceGUI extends JFrame {
   }
 
   private void refreshProducts() {
-    productModel.setRowCount(0);
-    List<Product> list = system.getProducts();
-    for (Product p : list) {
-      productModel.addRow(new Object[] { p.getId(), p.getName(), p.getPrice(), p.getStock() });
+    productModel.refresh();
+    if (searchModel != null)
+      searchModel.refresh();
+  }
+
+  // Applies one batch of change events; runs on the EDT
+  private void applyChanges(List<ChangeEvent> events) {
+    boolean usersChanged = false;
+    boolean ledgerChanged = false;
+    boolean cartRepriced = false;
+    for (ChangeEvent e : events) {
+      switch (e.getType()) {
+        case PRODUCT_ADDED:
+          productModel.productAdded(e.getProduct());
+          if (searchModel != null)
+            searchModel.productAdded(e.getProduct());
+          break;
+        case PRODUCT_REMOVED:
+          productModel.productRemoved(e.getProduct());
+          if (searchModel != null)
+            searchModel.productRemoved(e.getProduct());
+          break;
+        case PRICE_CHANGED:
+          cartRepriced |= system.getCart().getItem(e.getProduct().getId()) != null;
+          // fall through
+        case STOCK_CHANGED:
+          productModel.productUpdated(e.getProduct());
+          if (searchModel != null)
+            searchModel.productUpdated(e.getProduct());
+          break;
+        case USER_REGISTERED:
+          if (!usersChanged && userArea != null)
+            userArea.append(userLine(e.getUser()));
+          break;
+        case USER_REMOVED:
+          usersChanged = true;
+          break;
+        case TRANSACTION_RECORDED:
+          ledgerChanged = true;
+          break;
+      }
+    }
+    if (cartRepriced) {
+      // Show what checkout will charge
+      system.getCart().reprice();
+      refreshCart();
+    }
+    if (usersChanged)
+      refreshUsers();
+    if (ledgerChanged) {
+      refreshTransactions();
+      refreshBestSellers();
     }
   }
 
@@ -925,12 +1293,9 @@ public class ECommerceGUI extends JFrame {
     if (cartArea == null)
       return;
     StringBuilder sb = new StringBuilder();
-    double total = 0;
     for (CartItem item : system.getCart().getItems()) {
-      double line = item.getTotal();
-      sb.append(item.getProduct().getName()).append(" x").append(item.getQuantity()).append(" = $")
-          .append(String.format("%.2f", line)).append("\n");
-      total += line;
+      sb.append(item.getProduct().getName()).append(" x").append(item.getQuantity()).append(" = $");
+      Money.append(sb, item.getTotalCents()).append("\n");
     }
     if (sb.length() == 0) {
       cartArea.setText("Cart is empty.");
@@ -938,7 +1303,7 @@ public class ECommerceGUI extends JFrame {
       cartArea.setText(sb.toString());
     }
     if (totalLabel != null)
-      totalLabel.setText("Total: $" + String.format("%.2f", total));
+      totalLabel.setText("Total: $" + Money.format(system.getCartTotal()));
   }
 
   private void refreshUsers() {
@@ -946,28 +1311,137 @@ public class ECommerceGUI extends JFrame {
       return;
     StringBuilder sb = new StringBuilder();
     for (User u : system.getUsers()) {
-      sb.append(u.getId()).append(" | ").append(u.getUsername()).append(" | ").append(u.getType()).append("\n");
+      sb.append(userLine(u));
     }
     userArea.setText(sb.toString());
   }
 
+  private String userLine(User u) {
+    return u.getId() + " | " + u.getUsername() + " | " + u.getType() + "\n";
+  }
+
   private void refreshTransactions() {
-    if (transactionArea == null)
+    if (revenueLabel == null)
       return;
-    StringBuilder sb = new StringBuilder();
-    double total = 0;
-    for (Transaction t : system.getTransactions()) {
-      sb.append(t.toString()).append("\n");
-      total += t.getAmount();
+    transactionModel.refresh();
+    updateTransactionPager();
+  }
+
+  private void updateTransactionPager() {
+    transactionPageLabel.setText("Page " + (transactionModel.getPage() + 1) + " of " + transactionModel.getPageCount()
+        + "  (" + transactionModel.getLedgerSize() + ")");
+    revenueLabel.setText("Revenue: $" + Money.format(system.getTotalRevenueCents()));
+  }
+
+  // Transactions: paged, sortable table over the ledger; only visible rows are formatted
+  private JPanel buildTransactionPane() {
+    JTable table = timedTable(transactionModel, "transactions");
+    styleGlassTable(table);
+    table.getTableHeader().setReorderingAllowed(false);
+    table.getTableHeader().addMouseListener(new java.awt.event.MouseAdapter() {
+      @Override
+      public void mouseClicked(java.awt.event.MouseEvent e) {
+        int column = table.columnAtPoint(e.getPoint());
+        if (column >= 0) {
+          transactionModel.toggleSort(table.convertColumnIndexToModel(column));
+          updateTransactionPager();
+        }
+      }
+    });
+    JScrollPane scroll = styledGlassScroll(table);
+    scroll.setPreferredSize(new Dimension(320, 180));
+
+    JButton prevBtn = glassButtonOutline("◀");
+    JButton nextBtn = glassButtonOutline("▶");
+    prevBtn.setBorder(BorderFactory.createEmptyBorder(4, 10, 4, 10));
+    nextBtn.setBorder(BorderFactory.createEmptyBorder(4, 10, 4, 10));
+    transactionPageLabel = labeled("Page 1 of 1");
+    revenueLabel = labeled("Revenue: $0.00");
+    revenueLabel.setForeground(ACCENT);
+    prevBtn.addActionListener(e -> {
+      transactionModel.setPage(transactionModel.getPage() - 1);
+      updateTransactionPager();
+    });
+    nextBtn.addActionListener(e -> {
+      transactionModel.setPage(transactionModel.getPage() + 1);
+      updateTransactionPager();
+    });
+
+    JPanel pager = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 4));
+    pager.setOpaque(false);
+    pager.add(prevBtn);
+    pager.add(transactionPageLabel);
+    pager.add(nextBtn);
+    pager.add(revenueLabel);
+
+    JPanel pane = new JPanel(new BorderLayout());
+    pane.setOpaque(false);
+    pane.setBorder(BorderFactory.createTitledBorder(BorderFactory.createLineBorder(GLASS_BORDER), "Transactions"));
+    pane.add(scroll, BorderLayout.CENTER);
+    pane.add(pager, BorderLayout.SOUTH);
+    pane.setAlignmentX(Component.LEFT_ALIGNMENT);
+    return pane;
+  }
+
+  // Best sellers: top products by units and customers by spend, from the streaming summaries
+  private JPanel buildBestSellerPane() {
+    bestSellerArea = styledGlassArea();
+    bestSellerArea.setRows(10);
+    JScrollPane scroll = new JScrollPane(bestSellerArea);
+    scroll.getViewport().setOpaque(false);
+    scroll.setOpaque(false);
+    scroll.setBorder(null);
+
+    JPanel periods = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 4));
+    periods.setOpaque(false);
+    for (BestSellers.Period period : BestSellers.Period.values()) {
+      JButton btn = glassButtonOutline(period.toString());
+      btn.setBorder(BorderFactory.createEmptyBorder(4, 10, 4, 10));
+      btn.addActionListener(e -> {
+        bestSellerPeriod = period;
+        refreshBestSellers();
+      });
+      periods.add(btn);
     }
-    sb.append("Total Revenue: $").append(String.format("%.2f", total));
-    transactionArea.setText(sb.toString());
+
+    JPanel pane = new JPanel(new BorderLayout());
+    pane.setOpaque(false);
+    pane.setBorder(BorderFactory.createTitledBorder(BorderFactory.createLineBorder(GLASS_BORDER), "Best Sellers"));
+    pane.add(periods, BorderLayout.NORTH);
+    pane.add(scroll, BorderLayout.CENTER);
+    pane.setAlignmentX(Component.LEFT_ALIGNMENT);
+    return pane;
+  }
+
+  // Counts are upper bounds; "at least" is shown when a count may include others' sales
+  private void refreshBestSellers() {
+    if (bestSellerArea == null)
+      return;
+    StringBuilder sb = new StringBuilder(bestSellerPeriod + "\nProducts (units)\n");
+    int rank = 1;
+    for (SpaceSaving.Entry e : system.getTopProducts(bestSellerPeriod, 5)) {
+      Product p = system.findProduct(e.getKey());
+      sb.append(rank++).append(". ").append(e.getKey()).append(' ').append(p == null ? "(removed)" : p.getName())
+          .append("  ").append(e.getCount());
+      if (e.getError() > 0)
+        sb.append(" (at least ").append(e.getCount() - e.getError()).append(')');
+      sb.append('\n');
+    }
+    sb.append("Customers (spent)\n");
+    rank = 1;
+    for (SpaceSaving.Entry e : system.getTopCustomers(bestSellerPeriod, 5)) {
+      sb.append(rank++).append(". ").append(e.getKey()).append("  $").append(Money.format(e.getCount()));
+      if (e.getError() > 0)
+        sb.append(" (at least $").append(Money.format(e.getCount() - e.getError())).append(')');
+      sb.append('\n');
+    }
+    bestSellerArea.setText(sb.toString());
+    bestSellerArea.setCaretPosition(0);
   }
 
   private void logout() {
     system.logout();
     activeUser = null;
-    refreshProducts();
     refreshCart();
     showWelcome();
   }
@@ -995,12 +1469,26 @@ public class ECommerceGUI extends JFrame {
   }
 
   private void showCustomer() {
+    if (!customerPanelBuilt) {
+      cardPanel.add(buildCustomerPanel(), "CUSTOMER");
+      customerPanelBuilt = true;
+    }
+    if (activeUser != null)
+      welcomeLabel.setText("Hello, " + activeUser.getUsername() + " (" + activeUser.getType() + ")");
+    refreshCart();
     currentBackground = dashboardBackground;
     getContentPane().repaint();
     cardLayout.show(cardPanel, "CUSTOMER");
   }
 
   private void showAdmin() {
+    if (!adminPanelBuilt) {
+      cardPanel.add(buildAdminPanel(), "ADMIN");
+      adminPanelBuilt = true;
+      refreshUsers();
+      refreshTransactions();
+      refreshBestSellers();
+    }
     currentBackground = dashboardBackground;
     getContentPane().repaint();
     cardLayout.show(cardPanel, "ADMIN");
@@ -1008,21 +1496,12 @@ public class ECommerceGUI extends JFrame {
 
   private JTextField styledGlassField() {
     JTextField field = new JTextField() {
+      private final NineSlice body = shapeSlice(10, FIELD_FILL, GLASS_BORDER);
+
       @Override
       protected void paintComponent(Graphics g) {
-        Graphics2D g2 = (Graphics2D) g.create();
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        // Glass background - dark theme
-        g2.setColor(new Color(0, 0, 0, 80));
-        g2.fillRoundRect(0, 0, getWidth(), getHeight(), 10, 10);
-
-        // Glass border
-        g2.setColor(GLASS_BORDER);
-        g2.setStroke(new BasicStroke(1f));
-        g2.drawRoundRect(0, 0, getWidth() - 1, getHeight() - 1, 10, 10);
-
-        g2.dispose();
+        // Glass background and border - dark theme
+        paintShape(g, body, 0, 0, getWidth(), getHeight(), 10, FIELD_FILL, GLASS_BORDER);
         super.paintComponent(g);
       }
     };
@@ -1048,22 +1527,17 @@ public class ECommerceGUI extends JFrame {
 
   private JButton glassButton(String text) {
     JButton b = new JButton(text) {
+      private final NineSlice body = shapeSlice(12, ACCENT, null);
+      private final NineSlice armedBody = shapeSlice(12, ACCENT_DARK, null);
+      private final Shine shine = new Shine(12, BUTTON_SHINE);
+
       @Override
       protected void paintComponent(Graphics g) {
-        Graphics2D g2 = (Graphics2D) g.create();
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        Color btnColor = getModel().isArmed() ? ACCENT_DARK : ACCENT;
-        g2.setColor(btnColor);
-        g2.fillRoundRect(0, 0, getWidth(), getHeight(), 12, 12);
+        boolean armed = getModel().isArmed();
+        paintShape(g, armed ? armedBody : body, 0, 0, getWidth(), getHeight(), 12, armed ? ACCENT_DARK : ACCENT, null);
 
         // Glass highlight
-        GradientPaint highlight = new GradientPaint(0, 0, new Color(255, 255, 255, 60),
-            0, getHeight() / 2, new Color(255, 255, 255, 0));
-        g2.setPaint(highlight);
-        g2.fillRoundRect(1, 1, getWidth() - 2, getHeight() / 2, 12, 12);
-
-        g2.dispose();
+        shine.paint(g, 1, 1, getWidth() - 2, getHeight() / 2);
         super.paintComponent(g);
       }
     };
@@ -1079,21 +1553,15 @@ public class ECommerceGUI extends JFrame {
 
   private JButton glassButtonOutline(String text) {
     JButton b = new JButton(text) {
+      private final NineSlice body = shapeSlice(12, OUTLINE_FILL, OUTLINE_BORDER);
+      private final NineSlice armedBody = shapeSlice(12, OUTLINE_FILL_ARMED, OUTLINE_BORDER);
+
       @Override
       protected void paintComponent(Graphics g) {
-        Graphics2D g2 = (Graphics2D) g.create();
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        // Dark glass background
-        g2.setColor(new Color(0, 0, 0, getModel().isArmed() ? 100 : 60));
-        g2.fillRoundRect(0, 0, getWidth(), getHeight(), 12, 12);
-
-        // Border
-        g2.setColor(new Color(99, 102, 241, 80));
-        g2.setStroke(new BasicStroke(1f));
-        g2.drawRoundRect(0, 0, getWidth() - 1, getHeight() - 1, 12, 12);
-
-        g2.dispose();
+        // Dark glass background with accent border
+        boolean armed = getModel().isArmed();
+        paintShape(g, armed ? armedBody : body, 0, 0, getWidth(), getHeight(), 12,
+            armed ? OUTLINE_FILL_ARMED : OUTLINE_FILL, OUTLINE_BORDER);
         super.paintComponent(g);
       }
     };
@@ -1159,6 +1627,40 @@ public class ECommerceGUI extends JFrame {
     header.setDefaultRenderer(headerRenderer);
   }
 
+  // Table whose painting is reported to the EDT monitor under name
+  private static JTable timedTable(javax.swing.table.TableModel model, String name) {
+    return new JTable(model) {
+      @Override
+      protected void paintComponent(Graphics g) {
+        long start = EdtMonitor.paintStart();
+        super.paintComponent(g);
+        EdtMonitor.paintDone(name, start);
+      }
+    };
+  }
+
+  // Scroll pane for a product table: clicking a header sorts by that column, and
+  // the next catalog page is fetched when the view comes within a screen of the end
+  private JScrollPane productScroll(JTable table) {
+    JScrollPane sp = styledGlassScroll(table);
+    table.getTableHeader().setReorderingAllowed(false);
+    table.getTableHeader().addMouseListener(new java.awt.event.MouseAdapter() {
+      @Override
+      public void mouseClicked(java.awt.event.MouseEvent e) {
+        int column = table.columnAtPoint(e.getPoint());
+        if (column >= 0)
+          ((ProductTableModel) table.getModel()).toggleSort(table.convertColumnIndexToModel(column));
+      }
+    });
+    sp.getViewport().addChangeListener(e -> {
+      ProductTableModel model = (ProductTableModel) table.getModel();
+      Rectangle view = sp.getViewport().getViewRect();
+      if (model.hasMore() && view.y + 2 * view.height >= table.getHeight())
+        model.loadMore();
+    });
+    return sp;
+  }
+
   private JScrollPane styledGlassScroll(JTable table) {
     JScrollPane sp = new JScrollPane(table);
     sp.getViewport().setOpaque(false);
@@ -1212,21 +1714,12 @@ public class ECommerceGUI extends JFrame {
   // --- Styling helpers ---
   private JPasswordField styledGlassPasswordField() {
     JPasswordField field = new JPasswordField() {
+      private final NineSlice body = shapeSlice(10, FIELD_FILL, GLASS_BORDER);
+
       @Override
       protected void paintComponent(Graphics g) {
-        Graphics2D g2 = (Graphics2D) g.create();
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        // Glass background - dark theme (same as styledGlassField)
-        g2.setColor(new Color(0, 0, 0, 80));
-        g2.fillRoundRect(0, 0, getWidth(), getHeight(), 10, 10);
-
-        // Glass border
-        g2.setColor(GLASS_BORDER);
-        g2.setStroke(new BasicStroke(1f));
-        g2.drawRoundRect(0, 0, getWidth() - 1, getHeight() - 1, 10, 10);
-
-        g2.dispose();
+        // Glass background and border - dark theme (same as styledGlassField)
+        paintShape(g, body, 0, 0, getWidth(), getHeight(), 10, FIELD_FILL, GLASS_BORDER);
         super.paintComponent(g);
       }
     };
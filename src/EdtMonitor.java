@@ -0,0 +1,226 @@
+import java.awt.AWTEvent;
+import java.awt.Color;
+import java.awt.EventQueue;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Toolkit;
+import java.awt.event.InputEvent;
+import java.awt.event.InvocationEvent;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.JComponent;
+import javax.swing.Timer;
+
+// EDT Monitor - measures how long events wait in the AWT queue and how long they
+// take to dispatch, times the paintComponent calls it is asked to, and watches
+// for dispatches running past a threshold, printing the EDT's stack while it is
+// still stuck. Everything but the watchdog runs on the EDT.
+final class EdtMonitor {
+  private static final int BUCKETS = 10;
+  private static final String[] BUCKET_LABELS = { "<1", "<2", "<4", "<8", "<16", "<32", "<64", "<128", "<256",
+      "256+" };
+  private static final int MAX_STALLS = 5;
+  private static final Log.Event STALL = Log.event("edt.stall", Log.Level.WARN);
+  private static EdtMonitor installed;
+
+  private final long stallNanos;
+  private final Stats waits = new Stats();
+  private final Stats dispatches = new Stats();
+  private final Map<String, Stats> paints = new LinkedHashMap<>();
+  // Overlay lines of the latest stalls, newest first; written by the watchdog
+  private final ArrayDeque<List<String>> stalls = new ArrayDeque<>();
+  private volatile Thread edt;
+  // Start of the dispatch in progress, or 0 between dispatches
+  private volatile long dispatchStart;
+
+  // Count, total, worst and a log2 histogram of durations in milliseconds
+  static final class Stats {
+    long count;
+    long totalNanos;
+    long maxNanos;
+    final long[] buckets = new long[BUCKETS];
+
+    void record(long nanos) {
+      count++;
+      totalNanos += nanos;
+      maxNanos = Math.max(maxNanos, nanos);
+      long ms = nanos / 1_000_000;
+      int b = ms == 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(ms));
+      buckets[b]++;
+    }
+  }
+
+  private EdtMonitor(long stallMillis) {
+    this.stallNanos = stallMillis * 1_000_000;
+  }
+
+  // Replaces the system event queue with a measuring one and starts the stall
+  // watchdog. Later calls return the monitor already installed. Call on the EDT.
+  static EdtMonitor install() {
+    if (installed == null) {
+      installed = new EdtMonitor(Long.getLong("edt.stallMillis", 200));
+      Toolkit.getDefaultToolkit().getSystemEventQueue().push(installed.new MeasuringQueue());
+      Thread watchdog = new Thread(installed::watch, "EDT watchdog");
+      watchdog.setDaemon(true);
+      watchdog.start();
+    }
+    return installed;
+  }
+
+  // Start time for paintDone, or 0 when no monitor is installed
+  static long paintStart() {
+    return installed == null ? 0 : System.nanoTime();
+  }
+
+  static void paintDone(String component, long start) {
+    if (start != 0)
+      installed.paints.computeIfAbsent(component, k -> new Stats()).record(System.nanoTime() - start);
+  }
+
+  private class MeasuringQueue extends EventQueue {
+    // Dispatches in progress: more than one while a modal dialog pumps events
+    private int depth;
+    private boolean pumped;
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+      long start = System.nanoTime();
+      long queued = queuedAt(event);
+      if (queued > 0)
+        waits.record(Math.max(0, System.currentTimeMillis() - queued) * 1_000_000);
+      edt = Thread.currentThread();
+      if (depth++ > 0)
+        pumped = true;
+      dispatchStart = start;
+      try {
+        super.dispatchEvent(event);
+      } finally {
+        // An event that opened a modal dialog lasts as long as the dialog; its
+        // time is not dispatch work, and the events pumped meanwhile are
+        // measured on their own
+        dispatchStart = 0;
+        if (--depth > 0 || !pumped)
+          dispatches.record(System.nanoTime() - start);
+        if (depth == 0)
+          pumped = false;
+      }
+    }
+  }
+
+  // Wall-clock time the event was created, or 0 if it does not say
+  private static long queuedAt(AWTEvent event) {
+    if (event instanceof InvocationEvent)
+      return ((InvocationEvent) event).getWhen();
+    if (event instanceof InputEvent)
+      return ((InputEvent) event).getWhen();
+    return 0;
+  }
+
+  private void watch() {
+    long reported = 0;
+    while (true) {
+      try {
+        Thread.sleep(Math.max(10, stallNanos / 4_000_000));
+      } catch (InterruptedException e) {
+        return;
+      }
+      long start = dispatchStart;
+      Thread thread = edt;
+      if (start == 0 || start == reported || thread == null || System.nanoTime() - start < stallNanos)
+        continue;
+      // Once per stalled dispatch, taken while the EDT is still inside it
+      reported = start;
+      StackTraceElement[] stack = thread.getStackTrace();
+      long millis = (System.nanoTime() - start) / 1_000_000;
+      String title = "EDT stall: dispatch running for " + millis + " ms";
+      StringBuilder sb = new StringBuilder();
+      for (StackTraceElement frame : stack)
+        sb.append(sb.length() == 0 ? "at " : "\nat ").append(frame);
+      STALL.log("millis", millis, "stack", sb.toString());
+      // The overlay shows the top frame and the application's own frames, which
+      // are the ones in the default package
+      List<String> summary = new ArrayList<>();
+      summary.add(title);
+      for (int i = 0; i < stack.length && summary.size() < 6; i++) {
+        String cls = stack[i].getClassName();
+        if (i == 0 || (cls.indexOf('.') < 0 && !cls.startsWith("EdtMonitor") && !cls.contains("$$Lambda")))
+          summary.add("  at " + cls + "." + stack[i].getMethodName() + ":" + stack[i].getLineNumber());
+      }
+      synchronized (stalls) {
+        stalls.addFirst(summary);
+        if (stalls.size() > MAX_STALLS)
+          stalls.removeLast();
+      }
+    }
+  }
+
+  // Glass-pane overlay showing the statistics, refreshed twice a second while visible
+  JComponent overlay() {
+    JComponent overlay = new JComponent() {
+      private final Font font = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+
+      @Override
+      protected void paintComponent(Graphics g) {
+        g.setFont(font);
+        FontMetrics fm = g.getFontMetrics();
+        List<String> lines = report();
+        int lineHeight = fm.getHeight();
+        int w = 0;
+        for (String line : lines)
+          w = Math.max(w, fm.stringWidth(line));
+        g.setColor(new Color(0, 0, 0, 200));
+        g.fillRect(8, 8, w + 16, lines.size() * lineHeight + 12);
+        g.setColor(new Color(180, 255, 180));
+        int y = 14 + fm.getAscent();
+        for (String line : lines) {
+          g.drawString(line, 16, y);
+          y += lineHeight;
+        }
+      }
+    };
+    Timer refresh = new Timer(500, e -> overlay.repaint());
+    overlay.addHierarchyListener(e -> {
+      if (overlay.isShowing())
+        refresh.start();
+      else
+        refresh.stop();
+    });
+    return overlay;
+  }
+
+  private List<String> report() {
+    List<String> lines = new ArrayList<>();
+    lines.add("EDT monitor (stall threshold " + stallNanos / 1_000_000 + " ms, histograms in ms)");
+    lines.add(String.format("%-22s %7s %8s %8s  %s", "", "count", "avg ms", "max ms", histogramHeader()));
+    lines.add(row("queue wait", waits));
+    lines.add(row("dispatch", dispatches));
+    for (Map.Entry<String, Stats> e : paints.entrySet())
+      lines.add(row("paint " + e.getKey(), e.getValue()));
+    synchronized (stalls) {
+      lines.add(stalls.isEmpty() ? "Stalls: none" : "Stalls:");
+      for (List<String> stall : stalls)
+        for (String line : stall)
+          lines.add("  " + line);
+    }
+    return lines;
+  }
+
+  private static String histogramHeader() {
+    StringBuilder sb = new StringBuilder();
+    for (String label : BUCKET_LABELS)
+      sb.append(String.format("%6s", label));
+    return sb.toString();
+  }
+
+  private static String row(String name, Stats s) {
+    StringBuilder sb = new StringBuilder(String.format("%-22.22s %7d %8.2f %8.2f  ", name, s.count,
+        s.count == 0 ? 0.0 : s.totalNanos / 1e6 / s.count, s.maxNanos / 1e6));
+    for (long b : s.buckets)
+      sb.append(String.format("%6d", b));
+    return sb.toString();
+  }
+}
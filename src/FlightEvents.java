@@ -0,0 +1,95 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Flight Recorder events of EcommerceSystem. They cost next to nothing unless a
+// recording is running (java -XX:StartFlightRecording or jcmd <pid> JFR.start)
+// and then show up under "Vendora" in JDK Mission Control, next to the GC,
+// lock and I/O events of the same moment.
+
+@Name("vendora.Checkout")
+@Label("Checkout")
+@Category("Vendora")
+@Description("One checkout, from asking for the system lock to the order being recorded or refused")
+class CheckoutEvent extends Event {
+    @Label("Cart Lines")
+    int lines;
+
+    @Label("Units")
+    int units;
+
+    @Label("Total (cents)")
+    long totalCents;
+
+    @Label("Outcome")
+    @Description("completed, replayed (same idempotency key), out of stock or empty")
+    String outcome;
+
+    @Label("Lock Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    long lockWait;
+
+    @Label("Stock Deduction")
+    @Timespan(Timespan.NANOSECONDS)
+    long stockDeduction;
+}
+
+@Name("vendora.Login")
+@Label("Login")
+@Category("Vendora")
+@StackTrace(false)
+class LoginEvent extends Event {
+    @Label("Success")
+    boolean success;
+
+    @Label("Users Scanned")
+    @Description("Accounts compared before the match, or all of them on failure")
+    int usersScanned;
+}
+
+@Name("vendora.DataLoad")
+@Label("Data Load")
+@Category("Vendora")
+@Description("Reading one data file at startup")
+class DataLoadEvent extends Event {
+    @Label("File")
+    String file;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Records")
+    long records;
+
+    @Label("Parse Errors")
+    @Description("Lines skipped, plus one if reading stopped at an unreadable line")
+    int parseErrors;
+
+    @Label("Error")
+    String error;
+}
+
+@Name("vendora.Persistence")
+@Label("Save")
+@Category("Vendora")
+@Description("Writing one data file")
+class PersistenceEvent extends Event {
+    @Label("File")
+    String file;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Records")
+    long records;
+
+    @Label("Error")
+    String error;
+}
@@ -0,0 +1,67 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// Idempotency Cache - remembers the result of a request by its key for a limited
+// time so a retried request gets the original result instead of running twice.
+// Entries are kept in insertion order, which is also expiry order, so both the
+// size bound and the time bound are enforced by trimming from the head.
+class IdempotencyCache<V> {
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<>();
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public IdempotencyCache(int maxEntries, long ttl, TimeUnit unit) {
+        this(maxEntries, ttl, unit, System::nanoTime);
+    }
+
+    IdempotencyCache(int maxEntries, long ttl, TimeUnit unit, LongSupplier clock) {
+        if (maxEntries <= 0 || ttl <= 0)
+            throw new IllegalArgumentException("maxEntries and ttl must be positive");
+        this.maxEntries = maxEntries;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.clock = clock;
+    }
+
+    // Result stored for key, or null if it was never stored or has expired
+    public synchronized V get(String key) {
+        Entry<V> e = entries.get(key);
+        if (e == null)
+            return null;
+        if (e.expiresAt - clock.getAsLong() <= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return e.value;
+    }
+
+    public synchronized void put(String key, V value) {
+        long now = clock.getAsLong();
+        entries.remove(key);
+        entries.put(key, new Entry<>(value, now + ttlNanos));
+        Iterator<Map.Entry<String, Entry<V>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Entry<V> eldest = it.next().getValue();
+            if (entries.size() <= maxEntries && eldest.expiresAt - now > 0)
+                break;
+            it.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
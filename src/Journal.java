@@ -0,0 +1,422 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+// Journal Class - append-only history of everything that changes stock, prices
+// or the ledger, written next to the data files as journal.log. The data files
+// only hold the latest state; replaying the journal from its first record into
+// an empty EcommerceSystem rebuilds the catalog and the ledger as they were at
+// any later point (see LedgerReplay).
+//
+// One record per line, '|' separated, times in epoch milliseconds and amounts
+// as in the data files; the free-text field always comes last:
+//
+//   B|time|ledger size|revenue            journal started: ledger before it
+//   P|time|id|price|stock|name            product added (also the starting catalog)
+//   R|time|id|qty                         restocked
+//   C|time|id|price                       price changed
+//   X|time|id                             product removed
+//   O|time|amount|P1:2:999.00;...|user    order, with the lines it took out of stock
+//   S|time                                data files saved with exactly this state
+//
+// Each record is written with a single write() so a crash loses at most the
+// record being written; "S" records are also forced to disk.
+final class Journal implements Closeable {
+    static final String FILE_NAME = "journal.log";
+    private static final String HEADER = "# vendora journal 1";
+    private static final Log.Event WRITE_FAILED = Log.event("journal.write_failed", Log.Level.ERROR);
+
+    private final FileOutputStream out;
+    private final StringBuilder sb = new StringBuilder(256);
+    private final boolean fresh;
+
+    Journal(File file) throws IOException {
+        fresh = !file.exists() || file.length() == 0;
+        out = new FileOutputStream(file, true);
+    }
+
+    // True if the file did not exist before and still needs its baseline
+    boolean isNew() {
+        return fresh;
+    }
+
+    // Opens a new journal: the ledger totals so far and the current catalog
+    synchronized void baseline(long ledgerSize, long revenueCents, List<Product> catalog) {
+        sb.setLength(0);
+        sb.append(HEADER).append('\n');
+        record('B').append(ledgerSize).append('|');
+        Money.append(sb, revenueCents).append('\n');
+        for (Product p : catalog)
+            product(p).append('\n');
+        write(false);
+    }
+
+    synchronized void productAdded(Product p) {
+        sb.setLength(0);
+        product(p);
+        write(false);
+    }
+
+    synchronized void restocked(String id, int qty) {
+        sb.setLength(0);
+        record('R').append(id).append('|').append(qty);
+        write(false);
+    }
+
+    synchronized void repriced(String id, long priceCents) {
+        sb.setLength(0);
+        Money.append(record('C').append(id).append('|'), priceCents);
+        write(false);
+    }
+
+    synchronized void productRemoved(String id) {
+        sb.setLength(0);
+        record('X').append(id);
+        write(false);
+    }
+
+    synchronized void order(Transaction txn) {
+        sb.setLength(0);
+        sb.append('O').append('|').append(txn.getTimeMillis()).append('|');
+        Money.append(sb, txn.getAmountCents()).append('|');
+        OrderLine.appendAll(sb, txn.getLines()).append('|').append(txn.getUsername());
+        write(false);
+    }
+
+    synchronized void snapshotSaved() {
+        sb.setLength(0);
+        record('S');
+        sb.setLength(sb.length() - 1);
+        write(true);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.getFD().sync();
+        out.close();
+    }
+
+    private StringBuilder record(char type) {
+        return sb.append(type).append('|').append(System.currentTimeMillis()).append('|');
+    }
+
+    private StringBuilder product(Product p) {
+        record('P').append(p.getId()).append('|');
+        return Money.append(sb, p.getPriceCents()).append('|').append(p.getStock()).append('|').append(p.getName());
+    }
+
+    private void write(boolean force) {
+        if (sb.charAt(sb.length() - 1) != '\n')
+            sb.append('\n');
+        try {
+            out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+            if (force)
+                out.getFD().sync();
+        } catch (IOException e) {
+            WRITE_FAILED.log("record", sb.charAt(0), "error", e.getMessage());
+        }
+    }
+
+    // Handler Interface - receives the records of a journal in file order
+    interface Handler {
+        void baseline(long time, long ledgerSize, long revenueCents);
+
+        void productAdded(long time, String id, String name, long priceCents, int stock);
+
+        void restocked(long time, String id, int qty);
+
+        void repriced(long time, String id, long priceCents);
+
+        void productRemoved(long time, String id);
+
+        void order(long time, String username, long amountCents, List<OrderLine> lines);
+
+        // offset is where the record starts in the file
+        void snapshotSaved(long time, long offset);
+    }
+
+    // Streams the journal to the handler, parsing straight from the byte buffer
+    // with no line strings or split arrays; only ids, names and order lines are
+    // allocated. Returns the number of records read. A malformed line stops the
+    // read with an IOException naming it, except for a truncated last line,
+    // which is what a crash in the middle of a write leaves and is skipped.
+    static long read(File file, Handler handler) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return new Reader(in, handler).run();
+        }
+    }
+
+    // File offset of the last "S" record, or -1 if there is none. Read from
+    // the end, so it costs next to nothing when the journal ends with a save.
+    static long lastSnapshot(File file) throws IOException {
+        try (RandomAccessFile f = new RandomAccessFile(file, "r")) {
+            byte[] buf = new byte[1 << 16];
+            long end = f.length();
+            while (end > 0) {
+                long from = Math.max(0, end - buf.length);
+                int n = (int) (end - from);
+                f.seek(from);
+                f.readFully(buf, 0, n);
+                // buf[0] is only tested once the byte before it has been read
+                for (int i = n - 1; i >= (from == 0 ? 0 : 1); i--)
+                    if (buf[i] == 'S' && (i == 0 || buf[i - 1] == '\n'))
+                        return from + i;
+                end = from == 0 ? 0 : from + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Reader {
+        private final InputStream in;
+        private final Handler handler;
+        private byte[] buf = new byte[1 << 16];
+        // Next unread byte, end of the bytes read, and the current line
+        private int start;
+        private int end;
+        private int lineStart;
+        // File offset of buf[0]
+        private long consumed;
+        private int pos;
+        private int lineEnd;
+        private long lineNumber;
+        private final String[] strings = new String[1 << 14];
+        private final byte[][] stringBytes = new byte[1 << 14][];
+        private OrderLine[] scratch = new OrderLine[8];
+
+        Reader(InputStream in, Handler handler) {
+            this.in = in;
+            this.handler = handler;
+        }
+
+        long run() throws IOException {
+            long records = 0;
+            while (nextLine()) {
+                lineNumber++;
+                if (pos == lineEnd || buf[pos] == '#')
+                    continue;
+                records++;
+                try {
+                    dispatch();
+                } catch (RuntimeException e) {
+                    throw new IOException("journal line " + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+            return records;
+        }
+
+        private void dispatch() {
+            byte type = buf[pos];
+            pos += 2;
+            long time = number();
+            switch (type) {
+                case 'B': {
+                    long size = number();
+                    handler.baseline(time, size, amount());
+                    break;
+                }
+                case 'P': {
+                    String id = text();
+                    long price = amount();
+                    int stock = (int) number();
+                    handler.productAdded(time, id, new String(buf, pos, lineEnd - pos, StandardCharsets.UTF_8),
+                            price, stock);
+                    break;
+                }
+                case 'R': {
+                    String id = text();
+                    handler.restocked(time, id, (int) number());
+                    break;
+                }
+                case 'C': {
+                    String id = text();
+                    handler.repriced(time, id, amount());
+                    break;
+                }
+                case 'X':
+                    handler.productRemoved(time, rest());
+                    break;
+                case 'O': {
+                    long amount = amount();
+                    List<OrderLine> lines = lines();
+                    handler.order(time, rest(), amount, lines);
+                    break;
+                }
+                case 'S':
+                    handler.snapshotSaved(time, consumed + lineStart);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown record type '" + (char) type + "'");
+            }
+        }
+
+        // Positions pos..lineEnd on the next complete line, refilling the buffer
+        // as needed; false at the end of the file
+        private boolean nextLine() throws IOException {
+            int scanned = start;
+            while (true) {
+                for (int i = scanned; i < end; i++) {
+                    if (buf[i] == '\n') {
+                        pos = lineStart = start;
+                        lineEnd = i > start && buf[i - 1] == '\r' ? i - 1 : i;
+                        start = i + 1;
+                        return true;
+                    }
+                }
+                int pending = end - start;
+                if (start > 0) {
+                    consumed += start;
+                    System.arraycopy(buf, start, buf, 0, pending);
+                } else if (pending == buf.length) {
+                    byte[] bigger = new byte[buf.length * 2];
+                    System.arraycopy(buf, 0, bigger, 0, pending);
+                    buf = bigger;
+                }
+                start = 0;
+                end = pending;
+                scanned = pending;
+                int n = in.read(buf, end, buf.length - end);
+                if (n <= 0)
+                    return false;
+                end += n;
+            }
+        }
+
+        private void expectSeparator() {
+            if (pos < lineEnd) {
+                if (buf[pos] != '|')
+                    throw new IllegalArgumentException("expected '|' at column " + (pos - lineStart + 1));
+                pos++;
+            }
+        }
+
+        private long number() {
+            boolean negative = pos < lineEnd && buf[pos] == '-';
+            if (negative)
+                pos++;
+            int first = pos;
+            long value = 0;
+            while (pos < lineEnd && buf[pos] >= '0' && buf[pos] <= '9')
+                value = value * 10 + (buf[pos++] - '0');
+            if (pos == first)
+                throw new IllegalArgumentException("expected a number at column " + (pos - lineStart + 1));
+            expectSeparator();
+            return negative ? -value : value;
+        }
+
+        // Cents of an amount written by Money.append: digits, '.', two digits
+        private long amount() {
+            boolean negative = pos < lineEnd && buf[pos] == '-';
+            if (negative)
+                pos++;
+            int first = pos;
+            long value = 0;
+            int decimals = -1;
+            while (pos < lineEnd && buf[pos] != '|' && buf[pos] != ';' && buf[pos] != ':') {
+                byte b = buf[pos++];
+                if (b == '.' && decimals < 0) {
+                    decimals = 0;
+                } else if (b >= '0' && b <= '9' && decimals < 2) {
+                    value = value * 10 + (b - '0');
+                    if (decimals >= 0)
+                        decimals++;
+                } else {
+                    throw new IllegalArgumentException("expected an amount at column " + (first - lineStart + 1));
+                }
+            }
+            if (pos == first)
+                throw new IllegalArgumentException("expected an amount at column " + (first - lineStart + 1));
+            for (int d = Math.max(decimals, 0); d < 2; d++)
+                value *= 10;
+            expectSeparator();
+            return negative ? -value : value;
+        }
+
+        private String text() {
+            int first = pos;
+            while (pos < lineEnd && buf[pos] != '|')
+                pos++;
+            String s = string(first, pos);
+            expectSeparator();
+            return s;
+        }
+
+        private String rest() {
+            String s = string(pos, lineEnd);
+            pos = lineEnd;
+            return s;
+        }
+
+        // Ids and user names repeat on almost every line, so the last string
+        // seen for each hash is reused when its characters match
+        private String string(int from, int to) {
+            int h = 0;
+            for (int i = from; i < to; i++) {
+                if (buf[i] < 0)
+                    return new String(buf, from, to - from, StandardCharsets.UTF_8);
+                h = 31 * h + buf[i];
+            }
+            int slot = (h ^ h >>> 16) & (strings.length - 1);
+            byte[] seen = stringBytes[slot];
+            if (seen != null && Arrays.equals(seen, 0, seen.length, buf, from, to))
+                return strings[slot];
+            stringBytes[slot] = Arrays.copyOfRange(buf, from, to);
+            return strings[slot] = new String(buf, from, to - from, StandardCharsets.US_ASCII);
+        }
+
+        private List<OrderLine> lines() {
+            if (pos < lineEnd && buf[pos] == '|') {
+                pos++;
+                return List.of();
+            }
+            int count = 0;
+            while (true) {
+                int first = pos;
+                while (pos < lineEnd && buf[pos] != ':')
+                    pos++;
+                String id = string(first, pos);
+                pos++;
+                long qty = 0;
+                while (pos < lineEnd && buf[pos] >= '0' && buf[pos] <= '9')
+                    qty = qty * 10 + (buf[pos++] - '0');
+                if (pos >= lineEnd || buf[pos] != ':')
+                    throw new IllegalArgumentException("bad order line for " + id);
+                pos++;
+                int mark = pos;
+                long price = amountInLine();
+                if (pos == mark)
+                    throw new IllegalArgumentException("bad order line for " + id);
+                if (count == scratch.length)
+                    scratch = Arrays.copyOf(scratch, count * 2);
+                scratch[count++] = new OrderLine(id, (int) qty, price);
+                if (pos < lineEnd && buf[pos] == ';') {
+                    pos++;
+                    continue;
+                }
+                expectSeparator();
+                return List.of(Arrays.copyOf(scratch, count));
+            }
+        }
+
+        // amount() without consuming the separator after it
+        private long amountInLine() {
+            int before = lineEnd;
+            int stop = pos;
+            while (stop < lineEnd && buf[stop] != '|' && buf[stop] != ';')
+                stop++;
+            lineEnd = stop;
+            try {
+                return amount();
+            } finally {
+                lineEnd = before;
+            }
+        }
+    }
+}
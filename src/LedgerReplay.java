@@ -0,0 +1,245 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+// Ledger Replay - rebuilds the catalog and the ledger from a data directory's
+// journal (see Journal) by replaying it into an empty EcommerceSystem, and
+// checks the result against the data files.
+//
+//   java -cp bin LedgerReplay --dir data [--journal data/journal.log] [--out rebuilt]
+//
+// The journal is streamed, so its length is not limited by memory. When replay
+// reaches the last "data files saved" record, the rebuilt stock and prices of
+// every product and the ledger size and revenue are compared with what the
+// data files hold; the rest of the journal is then replayed on top, so after a
+// crash the rebuilt state includes the changes made since the last save.
+// --out writes that final state as products.txt and transactions.txt (ledger
+// entries older than the journal are copied from the data files); users are
+// not journaled and are not written.
+//
+// Exit status 0 if the replay was clean and matched the data files, 1 if it
+// found inconsistencies, 2 if the journal could not be read.
+class LedgerReplay implements Journal.Handler {
+    private static final int MAX_REPORTED = 20;
+
+    private final EcommerceSystem rebuilt = new EcommerceSystem(Runnable::run);
+    private final File dir;
+    // File offset of the last save in the journal
+    private final long checkAt;
+    // Records read, by type letter
+    private final long[] counts = new long[128];
+    private final List<String> problems = new ArrayList<>();
+    private long problemCount;
+    private long records;
+    private long baselineLedger;
+    private long baselineRevenue;
+    private boolean checked;
+    // Time spent loading and comparing the data files, left out of the replay rate
+    private long checkNanos;
+
+    LedgerReplay(File dir, long checkAt) {
+        this.dir = dir;
+        this.checkAt = checkAt;
+        rebuilt.beginBulkChanges();
+    }
+
+    public static void main(String[] args) {
+        File dir = null;
+        File journal = null;
+        File out = null;
+        if (args.length % 2 != 0) {
+            System.out.println("Usage: LedgerReplay [--dir <data directory>] [--journal <file>] [--out <directory>]");
+            System.exit(2);
+        }
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--dir":
+                    dir = new File(args[i + 1]);
+                    break;
+                case "--journal":
+                    journal = new File(args[i + 1]);
+                    break;
+                case "--out":
+                    out = new File(args[i + 1]);
+                    break;
+                default:
+                    System.out.println("Unknown option " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (journal == null)
+            journal = new File(dir, Journal.FILE_NAME);
+        System.exit(run(dir, journal, out));
+    }
+
+    static int run(File dir, File journal, File out) {
+        LedgerReplay replay;
+        long start = System.nanoTime();
+        try {
+            replay = new LedgerReplay(dir, Journal.lastSnapshot(journal));
+            Journal.read(journal, replay);
+            replay.rebuilt.endBulkChanges();
+        } catch (IOException e) {
+            System.out.println("Cannot replay " + journal + ": " + e.getMessage());
+            return 2;
+        }
+        double seconds = (System.nanoTime() - start - replay.checkNanos) / 1e9;
+        replay.report(journal.length(), seconds);
+        if (out != null && !replay.write(out))
+            return 2;
+        return replay.problemCount == 0 ? 0 : 1;
+    }
+
+    private void count(char type) {
+        records++;
+        counts[type]++;
+    }
+
+    private void problem(String message) {
+        problemCount++;
+        if (problems.size() < MAX_REPORTED)
+            problems.add("record " + records + ": " + message);
+    }
+
+    @Override
+    public void baseline(long time, long ledgerSize, long revenueCents) {
+        count('B');
+        baselineLedger += ledgerSize;
+        baselineRevenue += revenueCents;
+    }
+
+    @Override
+    public void productAdded(long time, String id, String name, long priceCents, int stock) {
+        count('P');
+        if (!rebuilt.addProduct(id, name, priceCents, stock))
+            problem("product " + id + " added twice");
+    }
+
+    @Override
+    public void restocked(long time, String id, int qty) {
+        count('R');
+        if (!rebuilt.restockProduct(id, qty))
+            problem("restock of unknown product " + id);
+    }
+
+    @Override
+    public void repriced(long time, String id, long priceCents) {
+        count('C');
+        if (!rebuilt.updateProductPrice(id, priceCents))
+            problem("price change of unknown product " + id);
+    }
+
+    @Override
+    public void productRemoved(long time, String id) {
+        count('X');
+        if (!rebuilt.removeProduct(id))
+            problem("removal of unknown product " + id);
+    }
+
+    @Override
+    public void order(long time, String username, long amountCents, List<OrderLine> lines) {
+        count('O');
+        long total = 0;
+        for (OrderLine line : lines)
+            total += line.getUnitPriceCents() * line.getQuantity();
+        if (!lines.isEmpty() && total != amountCents)
+            problem("order by " + username + " for " + Money.format(amountCents) + " but its lines add up to "
+                    + Money.format(total));
+        if (!rebuilt.replayOrder(username, amountCents, time, lines))
+            problem("order by " + username + " takes an unknown product or more than is in stock");
+    }
+
+    @Override
+    public void snapshotSaved(long time, long offset) {
+        count('S');
+        if (offset == checkAt)
+            checkAgainstDataFiles(time);
+    }
+
+    // The data files were written at this record, so they must hold exactly the
+    // state replayed so far
+    private void checkAgainstDataFiles(long time) {
+        long begin = System.nanoTime();
+        checked = true;
+        EcommerceSystem saved = new EcommerceSystem(Runnable::run);
+        saved.setDataDirectory(dir);
+        saved.loadData();
+        long before = problemCount;
+        for (Product p : saved.getProducts()) {
+            Product r = rebuilt.findProduct(p.getId());
+            if (r == null)
+                problem("data files have product " + p.getId() + ", the journal does not");
+            else if (r.getStock() != p.getStock() || r.getPriceCents() != p.getPriceCents())
+                problem(p.getId() + ": data files have " + p.getStock() + " at " + Money.format(p.getPriceCents())
+                        + ", journal has " + r.getStock() + " at " + Money.format(r.getPriceCents()));
+        }
+        for (Product r : rebuilt.getProducts())
+            if (saved.findProduct(r.getId()) == null)
+                problem("journal has product " + r.getId() + ", the data files do not");
+        long ledger = baselineLedger + rebuilt.getTransactions().size();
+        long revenue = baselineRevenue + rebuilt.getTotalRevenueCents();
+        if (saved.getTransactions().size() != ledger || saved.getTotalRevenueCents() != revenue)
+            problem("data files have " + saved.getTransactions().size() + " transactions worth "
+                    + Money.format(saved.getTotalRevenueCents()) + ", journal has " + ledger + " worth "
+                    + Money.format(revenue));
+        System.out.printf("Checked against the data files saved %tF %<tT (record %d): %s%n", new Date(time),
+                records, problemCount == before ? "match" : "MISMATCH");
+        checkNanos += System.nanoTime() - begin;
+    }
+
+    private void report(long bytes, double seconds) {
+        StringBuilder byType = new StringBuilder();
+        for (char type : "BPRCXOS".toCharArray())
+            if (counts[type] > 0)
+                byType.append(' ').append(type).append('=').append(counts[type]);
+        System.out.printf("Replayed %d records in %.3f s: %.0f records/s, %.1f MB/s%n", records, seconds,
+                records / Math.max(seconds, 1e-9), bytes / 1e6 / Math.max(seconds, 1e-9));
+        System.out.println("Records:" + byType);
+        if (!checked)
+            System.out.println("No save recorded in the journal; nothing to check against the data files");
+        System.out.printf("Rebuilt: %d products, %d units in stock, %d transactions worth %s%n",
+                rebuilt.getProducts().size(), rebuilt.getProducts().stream().mapToLong(Product::getStock).sum(),
+                baselineLedger + rebuilt.getTransactions().size(),
+                Money.format(baselineRevenue + rebuilt.getTotalRevenueCents()));
+        if (problemCount > 0) {
+            System.out.println(problemCount + " problem(s):");
+            problems.forEach(p -> System.out.println("  " + p));
+            if (problemCount > problems.size())
+                System.out.println("  ...");
+        }
+    }
+
+    // Final state as data files; entries the journal only has as a baseline
+    // total are taken from the existing transactions.txt
+    private boolean write(File out) {
+        out.mkdirs();
+        List<Transaction> older = List.of();
+        if (baselineLedger > 0) {
+            EcommerceSystem saved = new EcommerceSystem(Runnable::run);
+            saved.setDataDirectory(dir);
+            saved.loadData();
+            older = saved.getTransactions();
+            if (older.size() < baselineLedger) {
+                System.out.println("Not writing " + out + ": the data files hold " + older.size()
+                        + " transactions but the journal started after " + baselineLedger);
+                return false;
+            }
+        }
+        try (PrintWriter products = new PrintWriter(new FileWriter(new File(out, "products.txt")));
+                PrintWriter txns = new PrintWriter(new FileWriter(new File(out, "transactions.txt")))) {
+            rebuilt.getProducts().forEach(p -> products.println(p.toFile()));
+            for (int i = 0; i < baselineLedger; i++)
+                txns.println(older.get(i).toFile());
+            rebuilt.getTransactions().forEach(t -> txns.println(t.toFile()));
+        } catch (IOException e) {
+            System.out.println("Cannot write " + out + ": " + e.getMessage());
+            return false;
+        }
+        System.out.println("Wrote products.txt and transactions.txt to " + out);
+        return true;
+    }
+}
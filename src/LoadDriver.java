@@ -0,0 +1,517 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+// Load Driver - puts EcommerceSystem under concurrent load without the GUI.
+// Simulated shoppers log in (a few register first), browse, search and view
+// products, fill a cart and check out or abandon it, while admin threads
+// restock, reprice, add products and read purchase histories. Reports
+// throughput and latency percentiles per operation, then checks that stock,
+// the ledger and the user list still add up.
+//
+//   java -cp bin LoadDriver --model closed --shoppers 32 --think 20 --duration 30
+//   java -cp bin LoadDriver --model open --rate 500 --shoppers 64 --dir data
+//
+// Closed model: each shopper thread starts its next session when the last one
+// ends, so the offered load falls as the system slows down. Open model:
+// sessions arrive at a Poisson rate whatever the response times and queue for
+// the shopper threads; a session is timed from its scheduled arrival, so time
+// spent queued behind a slow system is counted rather than hidden.
+class LoadDriver {
+    enum Op {
+        LOGIN, REGISTER, BROWSE, SEARCH, VIEW, ADD_TO_CART, CHECKOUT, RETRY_CHECKOUT, RESTOCK, REPRICE,
+        ADD_PRODUCT, HISTORY
+    }
+
+    static final class Options {
+        String model = "closed";
+        int shoppers = 16;
+        double rate = 200;
+        double thinkMillis = 10;
+        int admins = 1;
+        double adminRate = 20;
+        double checkoutChance = 0.6;
+        double signupChance = 0.02;
+        double retryChance = 0.05;
+        int warmupSeconds = 5;
+        int durationSeconds = 30;
+        long seed = 42;
+        File dir;
+        long users = 10_000;
+        long products = 1_000;
+        double zipf = 1.1;
+    }
+
+    private final EcommerceSystem system;
+    private final Options o;
+    private final Map<Op, LatencyHistogram> latencies = new EnumMap<>(Op.class);
+    private final Map<Op, LongAdder> rejections = new EnumMap<>(Op.class);
+    private final LatencyHistogram sessions = new LatencyHistogram();
+    private final DatasetGenerator.ZipfSampler popularity;
+    private volatile boolean measuring;
+    private volatile boolean running = true;
+    private long maxBacklog;
+
+    // Bookkeeping for the consistency check, kept during warm-up as well
+    private final Map<Product, Integer> initialStock = new ConcurrentHashMap<>();
+    private final Map<Product, Long> initialUnitsSold = new ConcurrentHashMap<>();
+    private final Map<Product, LongAdder> sold = new ConcurrentHashMap<>();
+    private final Map<Product, LongAdder> restocked = new ConcurrentHashMap<>();
+    private final LongAdder checkouts = new LongAdder();
+    private final LongAdder chargedCents = new LongAdder();
+    private final LongAdder doubleCharges = new LongAdder();
+    private final AtomicLong names = new AtomicLong();
+    private final int initialLedger;
+    private final long initialRevenue;
+
+    LoadDriver(EcommerceSystem system, Options o) {
+        this.system = system;
+        this.o = o;
+        for (Op op : Op.values()) {
+            latencies.put(op, new LatencyHistogram());
+            rejections.put(op, new LongAdder());
+        }
+        for (Product p : system.getProducts()) {
+            initialStock.put(p, p.getStock());
+            initialUnitsSold.put(p, system.getProductSales(p.getId()).getUnits());
+        }
+        popularity = new DatasetGenerator.ZipfSampler(Math.max(1, system.getProducts().size()), o.zipf);
+        initialLedger = system.getTransactions().size();
+        initialRevenue = system.getTotalRevenueCents();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options o = new Options();
+        if (args.length % 2 != 0) {
+            System.out.println("Usage: LoadDriver [--model closed|open] [--shoppers <n>] [--rate <sessions/s>]"
+                    + " [--think <ms>] [--admins <n>] [--admin-rate <ops/s>] [--checkout <chance>]"
+                    + " [--signup <chance>] [--warmup <s>] [--duration <s>] [--seed <n>] [--dir <data directory>]"
+                    + " [--users <n>] [--products <n>] [--zipf <exponent>]");
+            System.exit(2);
+        }
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--model":
+                    o.model = value;
+                    break;
+                case "--shoppers":
+                    o.shoppers = Integer.parseInt(value);
+                    break;
+                case "--rate":
+                    o.rate = Double.parseDouble(value);
+                    break;
+                case "--think":
+                    o.thinkMillis = Double.parseDouble(value);
+                    break;
+                case "--admins":
+                    o.admins = Integer.parseInt(value);
+                    break;
+                case "--admin-rate":
+                    o.adminRate = Double.parseDouble(value);
+                    break;
+                case "--checkout":
+                    o.checkoutChance = Double.parseDouble(value);
+                    break;
+                case "--signup":
+                    o.signupChance = Double.parseDouble(value);
+                    break;
+                case "--warmup":
+                    o.warmupSeconds = Integer.parseInt(value);
+                    break;
+                case "--duration":
+                    o.durationSeconds = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    o.seed = Long.parseLong(value);
+                    break;
+                case "--dir":
+                    o.dir = new File(value);
+                    break;
+                case "--users":
+                    o.users = Long.parseLong(value);
+                    break;
+                case "--products":
+                    o.products = Long.parseLong(value);
+                    break;
+                case "--zipf":
+                    o.zipf = Double.parseDouble(value);
+                    break;
+                default:
+                    System.out.println("Unknown option " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (!o.model.equals("closed") && !o.model.equals("open")) {
+            System.out.println("--model must be closed or open");
+            System.exit(2);
+        }
+        // Nothing listens to change events here, so they need no delivery thread
+        EcommerceSystem system = new EcommerceSystem(Runnable::run);
+        if (o.dir != null) {
+            system.setDataDirectory(o.dir);
+            system.loadData();
+        } else {
+            File tmp = Files.createTempDirectory("loaddriver").toFile();
+            DatasetGenerator generator = new DatasetGenerator(o.users, o.products, 0, o.seed, o.zipf,
+                    java.time.LocalDate.of(2024, 1, 1), 1);
+            generator.writeUsers(new File(tmp, "users.txt"));
+            generator.writeProducts(new File(tmp, "products.txt"));
+            system.setDataDirectory(tmp);
+            system.loadData();
+            deleteTree(tmp);
+        }
+        system.getMetrics().expose("vendora:type=EcommerceSystem,name=LoadDriver");
+        LoadDriver driver = new LoadDriver(system, o);
+        List<String> violations = driver.run();
+        System.exit(violations.isEmpty() ? 0 : 1);
+    }
+
+    List<String> run() throws InterruptedException {
+        System.out.printf("%s model, %s, think %.0f ms, %d admin thread(s) at %.0f ops/s%n", o.model,
+                o.model.equals("open") ? String.format("%.0f sessions/s on %d shopper threads", o.rate, o.shoppers)
+                        : o.shoppers + " shoppers",
+                o.thinkMillis, o.admins, o.adminRate);
+        System.out.printf("%d products, %d users, %d transactions; %d s warm-up, %d s measured%n%n",
+                system.getProducts().size(), system.getUsers().size(), initialLedger, o.warmupSeconds,
+                o.durationSeconds);
+        SplittableRandom seeds = new SplittableRandom(o.seed);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < o.admins; i++) {
+            SplittableRandom r = seeds.split();
+            threads.add(start("admin-" + i, () -> adminLoop(r)));
+        }
+        ThreadPoolExecutor pool = null;
+        if (o.model.equals("closed")) {
+            for (int i = 0; i < o.shoppers; i++) {
+                SplittableRandom r = seeds.split();
+                threads.add(start("shopper-" + i, () -> {
+                    while (running) {
+                        long begin = System.nanoTime();
+                        session(r);
+                        if (measuring)
+                            sessions.record(System.nanoTime() - begin);
+                    }
+                }));
+            }
+        } else {
+            pool = new ThreadPoolExecutor(o.shoppers, o.shoppers, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+            SplittableRandom r = seeds.split();
+            ThreadPoolExecutor shoppers = pool;
+            threads.add(start("arrivals", () -> arrivals(r, shoppers)));
+        }
+
+        Thread.sleep(o.warmupSeconds * 1000L);
+        measuring = true;
+        long begin = System.nanoTime();
+        Thread.sleep(o.durationSeconds * 1000L);
+        measuring = false;
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        running = false;
+        for (Thread t : threads)
+            t.join();
+        if (pool != null) {
+            pool.shutdown();
+            if (!pool.awaitTermination(60, TimeUnit.SECONDS)) {
+                System.out.println("Backlog not drained after 60 s; abandoning " + pool.getQueue().size()
+                        + " queued sessions");
+                pool.shutdownNow();
+                pool.awaitTermination(10, TimeUnit.SECONDS);
+            }
+        }
+        report(seconds);
+        List<String> violations = checkConsistency();
+        if (violations.isEmpty()) {
+            System.out.println("\nConsistency: OK");
+        } else {
+            System.out.println("\nConsistency: " + violations.size() + " violation(s)");
+            violations.stream().limit(20).forEach(v -> System.out.println("  " + v));
+        }
+        return violations;
+    }
+
+    private Thread start(String name, Runnable body) {
+        Thread t = new Thread(() -> {
+            try {
+                body.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, name);
+        t.start();
+        return t;
+    }
+
+    // Open model: schedules arrivals ahead of time and never waits for a session
+    // to finish
+    private void arrivals(SplittableRandom r, ThreadPoolExecutor shoppers) {
+        long meanGap = (long) (1e9 / o.rate);
+        long next = System.nanoTime();
+        while (running) {
+            next += (long) (-Math.log(1 - r.nextDouble()) * meanGap);
+            long wait;
+            while ((wait = next - System.nanoTime()) > 0 && running)
+                LockSupport.parkNanos(wait);
+            if (!running)
+                return;
+            long scheduled = next;
+            SplittableRandom sessionRandom = r.split();
+            shoppers.execute(() -> {
+                session(sessionRandom);
+                if (measuring)
+                    sessions.record(System.nanoTime() - scheduled);
+            });
+            if (measuring)
+                maxBacklog = Math.max(maxBacklog, shoppers.getQueue().size());
+        }
+    }
+
+    private void session(SplittableRandom r) {
+        User user;
+        if (r.nextDouble() < o.signupChance) {
+            String name = "shopper" + o.seed + "-" + names.incrementAndGet();
+            if (!timed(Op.REGISTER, () -> system.register(name, "pw")))
+                return;
+            user = login(name, "pw");
+        } else {
+            List<User> users = system.getUsers();
+            User u = users.get(r.nextInt(users.size()));
+            if (u instanceof Admin)
+                return;
+            user = login(u.getUsername(), u.getPassword());
+        }
+        if (user == null)
+            return;
+        ShoppingCart cart = system.newCart();
+        int actions = 1 + r.nextInt(5);
+        for (int i = 0; i < actions && running; i++) {
+            think(r);
+            double x = r.nextDouble();
+            if (x < 0.5)
+                browse(r);
+            else if (x < 0.75)
+                search(r);
+            else
+                timed(Op.VIEW, () -> system.findProduct(popular(r).getId()) != null);
+            if (r.nextBoolean()) {
+                think(r);
+                Product p = popular(r);
+                int qty = r.nextInt(4) == 0 ? 2 : 1;
+                timed(Op.ADD_TO_CART, () -> system.addProductToCart(cart, p.getId(), qty));
+            }
+        }
+        if (!cart.isEmpty() && r.nextDouble() < o.checkoutChance) {
+            think(r);
+            checkout(r, user, cart);
+        }
+        // Logging out empties an abandoned cart
+        cart.clear();
+    }
+
+    private User login(String username, String password) {
+        User[] user = new User[1];
+        timed(Op.LOGIN, () -> (user[0] = system.authenticate(username, password)) != null);
+        return user[0];
+    }
+
+    // One to three pages in a random order
+    private void browse(SplittableRandom r) {
+        ProductQuery.SortKey[] keys = ProductQuery.SortKey.values();
+        ProductQuery.SortKey key = keys[r.nextInt(keys.length)];
+        boolean ascending = r.nextBoolean();
+        ProductCursor[] cursor = new ProductCursor[1];
+        int pages = 1 + r.nextInt(3);
+        for (int i = 0; i < pages; i++) {
+            ProductQuery q = new ProductQuery(key, ascending, 20).after(cursor[0]);
+            timed(Op.BROWSE, () -> {
+                cursor[0] = system.listProducts(q).getNextCursor();
+                return true;
+            });
+            if (cursor[0] == null)
+                return;
+        }
+    }
+
+    // The first letters of a word of a popular product's name, as typed
+    private void search(SplittableRandom r) {
+        String[] words = popular(r).getName().split(" ");
+        String word = words[r.nextInt(words.length)];
+        String prefix = word.substring(0, Math.min(word.length(), 2 + r.nextInt(3)));
+        timed(Op.SEARCH, () -> system.searchProducts(prefix, 50) != null);
+    }
+
+    private void checkout(SplittableRandom r, User user, ShoppingCart cart) {
+        Map<Product, Integer> lines = new java.util.HashMap<>();
+        for (CartItem item : cart.getItems())
+            lines.put(item.getProduct(), item.getQuantity());
+        String key = Long.toHexString(r.nextLong());
+        Transaction[] txn = new Transaction[1];
+        timed(Op.CHECKOUT, () -> (txn[0] = system.checkout(user, cart, key)) != null);
+        if (txn[0] == null)
+            return;
+        checkouts.increment();
+        chargedCents.add(txn[0].getAmountCents());
+        lines.forEach((p, qty) -> sold.computeIfAbsent(p, k -> new LongAdder()).add(qty));
+        // A client retrying after losing the response must get the same order back
+        if (r.nextDouble() < o.retryChance) {
+            Transaction[] again = new Transaction[1];
+            timed(Op.RETRY_CHECKOUT, () -> (again[0] = system.checkout(user, cart, key)) != null);
+            if (again[0] != txn[0])
+                doubleCharges.increment();
+        }
+    }
+
+    private void adminLoop(SplittableRandom r) {
+        long meanGap = (long) (1e9 / o.adminRate);
+        while (running) {
+            LockSupport.parkNanos((long) (-Math.log(1 - r.nextDouble()) * meanGap));
+            List<Product> catalog = system.getProducts();
+            Product p = catalog.get(r.nextInt(catalog.size()));
+            double x = r.nextDouble();
+            if (x < 0.5) {
+                int qty = 1 + r.nextInt(20);
+                if (timed(Op.RESTOCK, () -> system.restockProduct(p.getId(), qty)))
+                    restocked.computeIfAbsent(p, k -> new LongAdder()).add(qty);
+            } else if (x < 0.8) {
+                long price = Math.max(99, p.getPriceCents() * (90 + r.nextInt(21)) / 100);
+                timed(Op.REPRICE, () -> system.updateProductPrice(p.getId(), price));
+            } else if (x < 0.9) {
+                String id = "LD" + o.seed + "-" + names.incrementAndGet();
+                int stock = r.nextInt(50);
+                if (timed(Op.ADD_PRODUCT, () -> system.addProduct(id, "Load Test Item " + id, 1999, stock)))
+                    initialStock.put(system.findProduct(id), stock);
+            } else {
+                List<User> users = system.getUsers();
+                String name = users.get(r.nextInt(users.size())).getUsername();
+                timed(Op.HISTORY, () -> system.getOrderHistory(name) != null);
+            }
+        }
+    }
+
+    // Products of the starting catalog by Zipf rank, so a few best-sellers see
+    // most of the traffic and sell out
+    private Product popular(SplittableRandom r) {
+        List<Product> catalog = system.getProducts();
+        return catalog.get((int) Math.min(catalog.size(), popularity.sample(r)) - 1);
+    }
+
+    private void think(SplittableRandom r) {
+        if (o.thinkMillis > 0)
+            LockSupport.parkNanos((long) (-Math.log(1 - r.nextDouble()) * o.thinkMillis * 1e6));
+    }
+
+    // Runs call, recording its latency while measuring; false counts as rejected
+    private boolean timed(Op op, BooleanSupplier call) {
+        long start = System.nanoTime();
+        boolean ok = call.getAsBoolean();
+        if (measuring) {
+            latencies.get(op).record(System.nanoTime() - start);
+            if (!ok)
+                rejections.get(op).increment();
+        }
+        return ok;
+    }
+
+    private void report(double seconds) {
+        System.out.printf("%-15s %9s %9s %8s %8s %8s %8s %8s %8s %9s%n", "operation", "count", "ops/s", "rejected",
+                "mean", "p50", "p90", "p99", "p99.9", "max (ms)");
+        for (Op op : Op.values())
+            row(op.name().toLowerCase(), latencies.get(op), rejections.get(op).sum(), seconds);
+        row("session", sessions, 0, seconds);
+        long orders = latencies.get(Op.CHECKOUT).count() - rejections.get(Op.CHECKOUT).sum();
+        System.out.printf("%nCheckouts: %.1f/s measured; %d orders, $%s over the whole run%n", orders / seconds,
+                checkouts.sum(), Money.format(chargedCents.sum()));
+        if (o.model.equals("open"))
+            System.out.println("Largest session backlog: " + maxBacklog);
+    }
+
+    private static void row(String name, LatencyHistogram h, long rejected, double seconds) {
+        if (h.count() == 0)
+            return;
+        System.out.printf("%-15s %9d %9.1f %8d %8.3f %8.3f %8.3f %8.3f %8.3f %9.3f%n", name, h.count(),
+                h.count() / seconds, rejected, h.meanNanos() / 1e6, h.percentile(0.50) / 1e6,
+                h.percentile(0.90) / 1e6, h.percentile(0.99) / 1e6, h.percentile(0.999) / 1e6,
+                h.maxNanos() / 1e6);
+    }
+
+    // Stock is conserved (initial + restocked - sold) and never negative, the
+    // order store counts the same units sold, every order is in the ledger and
+    // the revenue once, and user names and ids are unique
+    List<String> checkConsistency() {
+        List<String> violations = new ArrayList<>();
+        for (Product p : system.getProducts()) {
+            Integer initial = initialStock.get(p);
+            if (initial == null)
+                continue;
+            long in = initial + count(restocked, p);
+            long out = count(sold, p);
+            if (p.getStock() < 0)
+                violations.add(p.getId() + ": negative stock " + p.getStock());
+            if (out > in)
+                violations.add(p.getId() + ": oversold, " + out + " sold of " + in + " available");
+            else if (p.getStock() != in - out)
+                violations.add(p.getId() + ": stock " + p.getStock() + ", expected " + (in - out) + " (" + initial
+                        + " initial + " + count(restocked, p) + " restocked - " + out + " sold)");
+            long stored = system.getProductSales(p.getId()).getUnits() - initialUnitsSold.getOrDefault(p, 0L);
+            if (stored != out)
+                violations.add(p.getId() + ": order store has " + stored + " units sold, " + out + " were");
+        }
+        List<Transaction> ledger = system.getTransactions();
+        long recorded = ledger.size() - initialLedger;
+        if (recorded != checkouts.sum())
+            violations.add("ledger grew by " + recorded + " for " + checkouts.sum() + " orders");
+        long ledgerCents = 0;
+        for (Transaction t : ledger.subList(initialLedger, ledger.size()))
+            ledgerCents += t.getAmountCents();
+        if (ledgerCents != chargedCents.sum())
+            violations.add("ledger holds $" + Money.format(ledgerCents) + " of new orders, $"
+                    + Money.format(chargedCents.sum()) + " was charged");
+        long revenue = system.getTotalRevenueCents() - initialRevenue;
+        if (revenue != chargedCents.sum())
+            violations.add("revenue grew by $" + Money.format(revenue) + ", $" + Money.format(chargedCents.sum())
+                    + " was charged");
+        if (doubleCharges.sum() > 0)
+            violations.add(doubleCharges.sum() + " retried checkout(s) did not return the original order");
+        Set<String> usernames = new HashSet<>();
+        Set<String> ids = new HashSet<>();
+        int duplicateNames = 0, duplicateIds = 0;
+        for (User u : system.getUsers()) {
+            if (!usernames.add(u.getUsername()))
+                duplicateNames++;
+            if (!ids.add(u.getId()))
+                duplicateIds++;
+        }
+        if (duplicateNames > 0)
+            violations.add(duplicateNames + " duplicate username(s)");
+        if (duplicateIds > 0)
+            violations.add(duplicateIds + " duplicate user id(s)");
+        return violations;
+    }
+
+    private static long count(Map<Product, LongAdder> counts, Product p) {
+        LongAdder n = counts.get(p);
+        return n == null ? 0 : n.sum();
+    }
+
+    private static void deleteTree(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null)
+            for (File f : files)
+                f.delete();
+        dir.delete();
+    }
+}
@@ -0,0 +1,400 @@
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Log Class - asynchronous structured logging. A call site declares its event
+// once and logs key/value fields through it:
+//
+//   private static final Log.Event ADDED = Log.event("cart.added", Log.Level.DEBUG);
+//   ADDED.log("product", id, "qty", qty);
+//
+// An event below its threshold costs one volatile read. An event that passes
+// is copied into a preallocated slot of a ring buffer and the caller returns;
+// a single background thread formats the entries and writes them to the sink,
+// so no caller ever waits for console or file I/O. When the ring is full,
+// entries below WARN are dropped and counted rather than blocking the caller.
+//
+// Events are tuned by name, without touching the call sites:
+//   -Dlog.level=DEBUG                  threshold for every event (default INFO)
+//   -Dlog.level.cart.added=OFF         threshold for one event, or OFF
+//   -Dlog.sample.cart.added=100        keep one entry in 100 of that event
+//   -Dlog.format=json                  one JSON object per line instead of text
+//   -Dlog.file=vendora.log             append to a file instead of stdout
+//   -Dlog.buffer=8192                  ring size, rounded up to a power of two
+final class Log {
+    enum Level {
+        TRACE, DEBUG, INFO, WARN, ERROR, OFF
+    }
+
+    static final int MAX_FIELDS = 4;
+
+    // Sink Interface - receives every entry on the writer thread, in order. The
+    // entry is reused afterwards, so a sink must copy what it keeps.
+    interface Sink {
+        void write(Entry entry);
+
+        // Called whenever the ring has been drained
+        void flush();
+    }
+
+    // Entry Class - one logged event; read-only for sinks
+    static final class Entry {
+        private volatile long published = -1;
+        private long timeMillis;
+        private Level level;
+        private Event event;
+        private String thread;
+        private int fieldCount;
+        private final String[] keys = new String[MAX_FIELDS];
+        private final Object[] values = new Object[MAX_FIELDS];
+
+        long timeMillis() {
+            return timeMillis;
+        }
+
+        Level level() {
+            return level;
+        }
+
+        String event() {
+            return event.name;
+        }
+
+        String thread() {
+            return thread;
+        }
+
+        int fieldCount() {
+            return fieldCount;
+        }
+
+        String key(int i) {
+            return keys[i];
+        }
+
+        Object value(int i) {
+            return values[i];
+        }
+    }
+
+    // Event Class - a named kind of log entry with its own threshold and
+    // sampling, both adjustable at runtime through Log.configure
+    static final class Event {
+        private final String name;
+        private final Level level;
+        private volatile boolean enabled;
+        private volatile int sampleEvery = 1;
+        private final AtomicLong seen = new AtomicLong();
+
+        private Event(String name, Level level) {
+            this.name = name;
+            this.level = level;
+        }
+
+        boolean enabled() {
+            return enabled;
+        }
+
+        void log() {
+            if (admit())
+                append(this, 0, null, null, null, null, null, null, null, null);
+        }
+
+        void log(String k1, Object v1) {
+            if (admit())
+                append(this, 1, k1, v1, null, null, null, null, null, null);
+        }
+
+        void log(String k1, Object v1, String k2, Object v2) {
+            if (admit())
+                append(this, 2, k1, v1, k2, v2, null, null, null, null);
+        }
+
+        void log(String k1, Object v1, String k2, Object v2, String k3, Object v3) {
+            if (admit())
+                append(this, 3, k1, v1, k2, v2, k3, v3, null, null);
+        }
+
+        void log(String k1, Object v1, String k2, Object v2, String k3, Object v3, String k4, Object v4) {
+            if (admit())
+                append(this, 4, k1, v1, k2, v2, k3, v3, k4, v4);
+        }
+
+        private boolean admit() {
+            if (!enabled)
+                return false;
+            int every = sampleEvery;
+            return every <= 1 || seen.getAndIncrement() % every == 0;
+        }
+    }
+
+    private static final Map<String, Event> EVENTS = new ConcurrentHashMap<>();
+    private static final Level THRESHOLD = parseLevel(System.getProperty("log.level"), Level.INFO);
+    private static final Entry[] RING;
+    private static final int MASK;
+    // Next sequence to claim, and next sequence the writer will read
+    private static final AtomicLong head = new AtomicLong();
+    private static volatile long tail;
+    // Entries before this one have been written and the sink flushed
+    private static volatile long flushed;
+    private static final LongAdder dropped = new LongAdder();
+    private static volatile Sink sink;
+    private static final Thread writer;
+
+    static {
+        int size = Integer.highestOneBit(Math.max(16, Integer.getInteger("log.buffer", 8192)) * 2 - 1);
+        RING = new Entry[size];
+        for (int i = 0; i < size; i++)
+            RING[i] = new Entry();
+        MASK = size - 1;
+        sink = defaultSink();
+        writer = new Thread(Log::drainLoop, "log writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::flush, "log flush"));
+    }
+
+    private Log() {
+    }
+
+    // The event with this name, created at the given default level on first use
+    static Event event(String name, Level level) {
+        return EVENTS.computeIfAbsent(name, n -> {
+            Event e = new Event(n, level);
+            Level threshold = parseLevel(System.getProperty("log.level." + n), THRESHOLD);
+            e.enabled = level != Level.OFF && level.compareTo(threshold) >= 0;
+            e.sampleEvery = Math.max(1, Integer.getInteger("log.sample." + n, 1));
+            return e;
+        });
+    }
+
+    // Changes an event's threshold (OFF silences it) and sampling while running
+    static void configure(String name, Level threshold, int sampleEvery) {
+        Event e = EVENTS.get(name);
+        if (e == null)
+            return;
+        e.enabled = threshold != Level.OFF && e.level.compareTo(threshold) >= 0;
+        e.sampleEvery = Math.max(1, sampleEvery);
+    }
+
+    static void setSink(Sink newSink) {
+        flush();
+        sink = newSink;
+    }
+
+    // Entries dropped because the ring was full
+    static long dropped() {
+        return dropped.sum();
+    }
+
+    // Waits until everything logged so far has been written out
+    static void flush() {
+        long target = head.get();
+        long deadline = System.nanoTime() + 2_000_000_000L;
+        while (flushed < target && System.nanoTime() < deadline) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    private static void append(Event event, int count, String k1, Object v1, String k2, Object v2, String k3,
+            Object v3, String k4, Object v4) {
+        long seq;
+        while (true) {
+            seq = head.get();
+            if (seq - tail >= RING.length) {
+                // Full: warnings and errors wait for room, everything else is dropped
+                if (event.level.compareTo(Level.WARN) < 0) {
+                    dropped.increment();
+                    return;
+                }
+                LockSupport.unpark(writer);
+                Thread.yield();
+                continue;
+            }
+            if (head.compareAndSet(seq, seq + 1))
+                break;
+        }
+        Entry e = RING[(int) seq & MASK];
+        e.timeMillis = System.currentTimeMillis();
+        e.level = event.level;
+        e.event = event;
+        e.thread = Thread.currentThread().getName();
+        e.fieldCount = count;
+        e.keys[0] = k1;
+        e.values[0] = v1;
+        e.keys[1] = k2;
+        e.values[1] = v2;
+        e.keys[2] = k3;
+        e.values[2] = v3;
+        e.keys[3] = k4;
+        e.values[3] = v4;
+        e.published = seq;
+    }
+
+    // Writer thread: formats published entries in sequence order and flushes
+    // the sink whenever it catches up, backing off while the ring stays empty
+    private static void drainLoop() {
+        long idleNanos = 0;
+        while (true) {
+            long next = tail;
+            Entry e = RING[(int) next & MASK];
+            if (e.published != next) {
+                if (idleNanos == 0) {
+                    flushSink();
+                    flushed = next;
+                }
+                idleNanos = Math.min(Math.max(idleNanos * 2, 50_000), 10_000_000);
+                LockSupport.parkNanos(idleNanos);
+                continue;
+            }
+            idleNanos = 0;
+            try {
+                sink.write(e);
+            } catch (RuntimeException ex) {
+                ex.printStackTrace();
+            }
+            for (int i = 0; i < MAX_FIELDS; i++)
+                e.values[i] = null;
+            tail = next + 1;
+        }
+    }
+
+    private static void flushSink() {
+        try {
+            sink.flush();
+        } catch (RuntimeException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    private static Level parseLevel(String value, Level fallback) {
+        if (value == null)
+            return fallback;
+        try {
+            return Level.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+
+    private static Sink defaultSink() {
+        OutputStream out = System.out;
+        String file = System.getProperty("log.file");
+        if (file != null) {
+            try {
+                out = new FileOutputStream(file, true);
+            } catch (IOException e) {
+                System.out.println("Cannot open log file " + file + ": " + e.getMessage());
+            }
+        }
+        PrintStream stream = new PrintStream(new java.io.BufferedOutputStream(out, 64 * 1024), false);
+        return "json".equals(System.getProperty("log.format")) ? new JsonSink(stream) : new TextSink(stream);
+    }
+
+    // TextSink Class - "2024-05-01 12:00:00.000 INFO  [main] cart.added product=P1 qty=2";
+    // values with newlines (stack traces) follow on their own indented lines
+    static final class TextSink implements Sink {
+        private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS")
+                .withZone(ZoneId.systemDefault());
+        private final PrintStream out;
+        private final StringBuilder sb = new StringBuilder(256);
+        private final StringBuilder trailer = new StringBuilder();
+
+        TextSink(PrintStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(Entry e) {
+            sb.setLength(0);
+            trailer.setLength(0);
+            TIME.formatTo(Instant.ofEpochMilli(e.timeMillis()), sb);
+            sb.append(' ').append(e.level());
+            if (e.level().name().length() < 5)
+                sb.append(' ');
+            sb.append(" [").append(e.thread()).append("] ").append(e.event());
+            for (int i = 0; i < e.fieldCount(); i++) {
+                String value = String.valueOf(e.value(i));
+                if (value.indexOf('\n') >= 0) {
+                    trailer.append('\n').append(e.key(i)).append(":\n\t").append(value.replace("\n", "\n\t"));
+                    continue;
+                }
+                sb.append(' ').append(e.key(i)).append('=');
+                if (value.isEmpty() || value.indexOf(' ') >= 0 || value.indexOf('"') >= 0 || value.indexOf('=') >= 0)
+                    sb.append('"').append(value.replace("\"", "\\\"")).append('"');
+                else
+                    sb.append(value);
+            }
+            out.append(sb).append(trailer).append('\n');
+        }
+
+        @Override
+        public void flush() {
+            out.flush();
+        }
+    }
+
+    // JsonSink Class - one object per line: {"time":...,"level":...,"event":...,"thread":...,fields}
+    static final class JsonSink implements Sink {
+        private final PrintStream out;
+        private final StringBuilder sb = new StringBuilder(256);
+
+        JsonSink(PrintStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(Entry e) {
+            sb.setLength(0);
+            sb.append("{\"time\":").append(e.timeMillis()).append(",\"level\":\"").append(e.level())
+                    .append("\",\"event\":");
+            string(e.event());
+            sb.append(",\"thread\":");
+            string(e.thread());
+            for (int i = 0; i < e.fieldCount(); i++) {
+                sb.append(',');
+                string(e.key(i));
+                sb.append(':');
+                Object v = e.value(i);
+                if (v instanceof Number || v instanceof Boolean)
+                    sb.append(v);
+                else
+                    string(String.valueOf(v));
+            }
+            out.append(sb.append("}\n"));
+        }
+
+        private void string(String s) {
+            sb.append('"');
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == '"' || c == '\\')
+                    sb.append('\\').append(c);
+                else if (c == '\n')
+                    sb.append("\\n");
+                else if (c == '\t')
+                    sb.append("\\t");
+                else if (c < 0x20)
+                    sb.append(String.format("\\u%04x", (int) c));
+                else
+                    sb.append(c);
+            }
+            sb.append('"');
+        }
+
+        @Override
+        public void flush() {
+            out.flush();
+        }
+    }
+}
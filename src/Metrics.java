@@ -0,0 +1,170 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanException;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+// Metrics Class - timers, counters and gauges of one EcommerceSystem. Recording
+// never locks: a timed call costs two System.nanoTime() reads and a few
+// uncontended atomic adds. Percentiles and the other derived values are worked
+// out only when a snapshot is read, over JMX or by the periodic dump.
+class Metrics {
+    private static final Log.Event NOT_REGISTERED = Log.event("metrics.jmx_failed", Log.Level.WARN);
+    private static final Log.Event SNAPSHOT = Log.event("metrics.snapshot", Log.Level.INFO);
+    private final Map<String, Timer> timers = new ConcurrentSkipListMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+    private ScheduledExecutorService dumper;
+
+    // Timer Class - latency histogram and failure count of one operation
+    static final class Timer {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder failures = new LongAdder();
+
+        // Records the time since start, a System.nanoTime() reading
+        void record(long start, boolean ok) {
+            latency.record(System.nanoTime() - start);
+            if (!ok)
+                failures.increment();
+        }
+    }
+
+    Timer timer(String name) {
+        return timers.computeIfAbsent(name, k -> new Timer());
+    }
+
+    LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    // value is read on every snapshot, from the reading thread
+    void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    // Every metric by name: timers as count, failures and latencies in
+    // milliseconds, then counters, then gauges
+    Map<String, Number> snapshot() {
+        Map<String, Number> values = new LinkedHashMap<>();
+        for (Map.Entry<String, Timer> e : timers.entrySet()) {
+            String name = e.getKey();
+            LatencyHistogram h = e.getValue().latency;
+            values.put(name + ".count", h.count());
+            values.put(name + ".failures", e.getValue().failures.sum());
+            values.put(name + ".meanMs", h.meanNanos() / 1e6);
+            values.put(name + ".p50Ms", h.percentile(0.50) / 1e6);
+            values.put(name + ".p90Ms", h.percentile(0.90) / 1e6);
+            values.put(name + ".p99Ms", h.percentile(0.99) / 1e6);
+            values.put(name + ".p999Ms", h.percentile(0.999) / 1e6);
+            values.put(name + ".maxMs", h.maxNanos() / 1e6);
+        }
+        counters.forEach((name, n) -> values.put(name, n.sum()));
+        gauges.forEach((name, g) -> values.put(name, g.getAsLong()));
+        return values;
+    }
+
+    // One line per timer, then the counters and gauges on one line
+    List<String> dump() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, Timer> e : timers.entrySet()) {
+            LatencyHistogram h = e.getValue().latency;
+            if (h.count() == 0)
+                continue;
+            lines.add(String.format("%-12s n=%d failed=%d mean=%.3f p50=%.3f p99=%.3f p99.9=%.3f max=%.3f ms",
+                    e.getKey(), h.count(), e.getValue().failures.sum(), h.meanNanos() / 1e6,
+                    h.percentile(0.50) / 1e6, h.percentile(0.99) / 1e6, h.percentile(0.999) / 1e6,
+                    h.maxNanos() / 1e6));
+        }
+        StringBuilder sb = new StringBuilder();
+        counters.forEach((name, n) -> sb.append(name).append('=').append(n.sum()).append(' '));
+        gauges.forEach((name, g) -> sb.append(name).append('=').append(g.getAsLong()).append(' '));
+        lines.add(sb.toString().trim());
+        return lines;
+    }
+
+    // Registers the metrics as a JMX MBean under objectName (for JConsole or
+    // VisualVM) and, if -Dmetrics.dumpSeconds is set, logs them that often
+    synchronized void expose(String objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(), new ObjectName(objectName));
+        } catch (JMException e) {
+            NOT_REGISTERED.log("name", objectName, "error", e.getMessage());
+        }
+        long seconds = Long.getLong("metrics.dumpSeconds", 0);
+        if (seconds > 0 && dumper == null) {
+            dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "metrics dump");
+                t.setDaemon(true);
+                return t;
+            });
+            dumper.scheduleAtFixedRate(() -> dump().forEach(line -> SNAPSHOT.log("line", line)), seconds, seconds,
+                    TimeUnit.SECONDS);
+        }
+    }
+
+    // Read-only attributes, one per snapshot entry; the attribute list is taken
+    // from the metrics registered when it is asked for
+    private class MetricsMBean implements DynamicMBean {
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Number value = snapshot().get(attribute);
+            if (value == null)
+                throw new AttributeNotFoundException(attribute);
+            return value;
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            Map<String, Number> values = snapshot();
+            AttributeList list = new AttributeList();
+            for (String a : attributes)
+                if (values.containsKey(a))
+                    list.add(new Attribute(a, values.get(a)));
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature)
+                throws MBeanException, ReflectionException {
+            // There are no operations
+            throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (Map.Entry<String, Number> e : snapshot().entrySet())
+                attributes.add(new MBeanAttributeInfo(e.getKey(), e.getValue().getClass().getName(), e.getKey(),
+                        true, false, false));
+            return new MBeanInfo(Metrics.class.getName(), "EcommerceSystem metrics",
+                    attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[0], null);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+// Money Class - fixed-point amounts held as a long number of cents.
+// Arithmetic on amounts is plain long arithmetic; this class only converts
+// between cents and their decimal text form without going through double.
+final class Money {
+    private Money() {
+    }
+
+    // Parses "12", "12.5", "12.50" or "-3.99" into cents, rounding half up past two decimals
+    static long parse(String text) {
+        String s = text.trim();
+        int i = 0;
+        int n = s.length();
+        boolean negative = false;
+        if (i < n && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            negative = s.charAt(i) == '-';
+            i++;
+        }
+        long whole = 0;
+        int digits = 0;
+        while (i < n && s.charAt(i) != '.') {
+            whole = Math.addExact(Math.multiplyExact(whole, 10), digit(s, i));
+            digits++;
+            i++;
+        }
+        long cents = 0;
+        if (i < n) {
+            i++;
+            int scale = 0;
+            while (i < n) {
+                int d = digit(s, i);
+                if (scale < 2)
+                    cents = cents * 10 + d;
+                else if (scale == 2 && d >= 5)
+                    cents++;
+                scale++;
+                digits++;
+                i++;
+            }
+            if (scale == 1)
+                cents *= 10;
+        }
+        if (digits == 0)
+            throw new NumberFormatException("Not an amount: \"" + text + "\"");
+        long total = Math.addExact(Math.multiplyExact(whole, 100), cents);
+        return negative ? -total : total;
+    }
+
+    // "1234.50" - used for display and for the data files
+    static String format(long cents) {
+        return append(new StringBuilder(24), cents).toString();
+    }
+
+    // Appends the amount to sb without creating any intermediate objects
+    static StringBuilder append(StringBuilder sb, long cents) {
+        if (cents < 0) {
+            sb.append('-');
+            if (cents == Long.MIN_VALUE)
+                return sb.append(-(cents / 100)).append('.').append('0').append((char) ('0' + 8));
+            cents = -cents;
+        }
+        long fraction = cents % 100;
+        return sb.append(cents / 100).append('.')
+                .append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10));
+    }
+
+    private static int digit(String s, int i) {
+        char c = s.charAt(i);
+        if (c < '0' || c > '9')
+            throw new NumberFormatException("Not an amount: \"" + s + "\"");
+        return c - '0';
+    }
+}
@@ -0,0 +1,111 @@
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+// Nine-Slice Class - a rounded glass shape rendered once into a small square
+// image and then stretched to any size: the four corners are copied as they
+// are, the edges are stretched along their length and the centre both ways
+// (or filled with a plain colour when it is uniform). Anti-aliasing and
+// gradients are paid for once per style, not on every paint.
+final class NineSlice {
+  private static final Map<String, NineSlice> CACHE = new HashMap<>();
+
+  private final int inset;
+  // Row-major: top-left, top, top-right, left, centre, right, bottom-left, bottom, bottom-right
+  private final BufferedImage[] parts = new BufferedImage[9];
+  // Colour of every centre pixel, or null when the centre is not uniform
+  private final Color centreColor;
+
+  private NineSlice(BufferedImage image, int inset) {
+    this.inset = inset;
+    int s = image.getWidth();
+    int[] from = { 0, inset, s - inset };
+    int[] size = { inset, s - 2 * inset, inset };
+    for (int row = 0; row < 3; row++)
+      for (int col = 0; col < 3; col++)
+        parts[row * 3 + col] = copy(image, from[col], from[row], size[col], size[row]);
+    this.centreColor = uniformColor(parts[4]);
+  }
+
+  // Slice for key, rendered by painter at size x size on first use. inset is the
+  // width of the corner squares and must cover the rounded corners. Called on the EDT.
+  static NineSlice of(String key, int size, int inset, BiConsumer<Graphics2D, Integer> painter) {
+    NineSlice slice = CACHE.get(key);
+    if (slice == null) {
+      BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB_PRE);
+      Graphics2D g2 = image.createGraphics();
+      g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+      painter.accept(g2, size);
+      g2.dispose();
+      slice = new NineSlice(image, inset);
+      CACHE.put(key, slice);
+    }
+    return slice;
+  }
+
+  // False when the target is too small to hold the corners; callers then paint directly
+  boolean fits(int w, int h) {
+    return w >= 2 * inset && h >= 2 * inset;
+  }
+
+  // Corners are plain copies. Edges and centre are stretched with nearest-neighbour
+  // sampling, which keeps the blits on the fast path. That is only faithful for
+  // shapes whose edges do not vary along the stretch direction, such as a flat
+  // fill with a border; a gradient along it would come out banded and with its
+  // fade squeezed into the corners, so gradients are not sliced.
+  void paint(Graphics g, int x, int y, int w, int h) {
+    Graphics2D g2 = (Graphics2D) g;
+    Object interpolation = g2.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+    g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+    int i = inset;
+    int x2 = x + w - i, y2 = y + h - i;
+    int cw = w - 2 * i, ch = h - 2 * i;
+    g2.drawImage(parts[0], x, y, null);
+    g2.drawImage(parts[2], x2, y, null);
+    g2.drawImage(parts[6], x, y2, null);
+    g2.drawImage(parts[8], x2, y2, null);
+    if (cw > 0) {
+      g2.drawImage(parts[1], x + i, y, cw, i, null);
+      g2.drawImage(parts[7], x + i, y2, cw, i, null);
+    }
+    if (ch > 0) {
+      g2.drawImage(parts[3], x, y + i, i, ch, null);
+      g2.drawImage(parts[5], x2, y + i, i, ch, null);
+    }
+    if (cw > 0 && ch > 0) {
+      if (centreColor == null) {
+        g2.drawImage(parts[4], x + i, y + i, cw, ch, null);
+      } else if (centreColor.getAlpha() > 0) {
+        Color old = g2.getColor();
+        g2.setColor(centreColor);
+        g2.fillRect(x + i, y + i, cw, ch);
+        g2.setColor(old);
+      }
+    }
+    g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+        interpolation != null ? interpolation : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+  }
+
+  // Standalone copy rather than getSubimage, so each part is its own managed image
+  private static BufferedImage copy(BufferedImage src, int x, int y, int w, int h) {
+    BufferedImage part = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+    Graphics2D g2 = part.createGraphics();
+    g2.drawImage(src, 0, 0, w, h, x, y, x + w, y + h, null);
+    g2.dispose();
+    return part;
+  }
+
+  private static Color uniformColor(BufferedImage part) {
+    int argb = part.getRGB(0, 0);
+    for (int y = 0; y < part.getHeight(); y++)
+      for (int x = 0; x < part.getWidth(); x++)
+        if (part.getRGB(x, y) != argb)
+          return null;
+    return new Color(argb, true);
+  }
+}
@@ -0,0 +1,253 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Order Store - every order of the ledger with its lines, kept column by column
+// in primitive arrays instead of one object per order and per line. Customer
+// names and product ids are stored once each and referred to by number, so an
+// order costs 28 bytes plus 24 per line, indexes included.
+//
+// Orders are numbered from 1 in the order they were recorded, which is also
+// their position in transactions.txt, so an order id stays the same across
+// restarts. Two indexes are maintained as orders come in: the orders of each
+// customer and the lines of each product, with running unit and revenue
+// totals per product. Each index is a chain through a column: every order
+// (or line) holds the number of the previous one of the same customer (or
+// product), and only the latest is kept per key, so adding costs one random
+// access per index and there is no per-key list object.
+class OrderStore {
+    private static final int INITIAL = 1024;
+
+    // Order columns, indexed by order id - 1; the lines of an order run from
+    // its firstLine to the next order's
+    private int[] customer = new int[INITIAL];
+    private long[] time = new long[INITIAL];
+    private long[] amount = new long[INITIAL];
+    private int[] firstLine = new int[INITIAL + 1];
+    // Previous order id of the same customer, 0 for their first
+    private int[] previousOfCustomer = new int[INITIAL];
+    private int orders;
+
+    // Line columns
+    private int[] lineOrder = new int[INITIAL];
+    private int[] lineProduct = new int[INITIAL];
+    private int[] lineQty = new int[INITIAL];
+    private long[] linePrice = new long[INITIAL];
+    // Previous line number + 1 of the same product, 0 for its first
+    private int[] previousOfProduct = new int[INITIAL];
+    private int lines;
+
+    private final Dictionary customers = new Dictionary();
+    private final Dictionary products = new Dictionary();
+    // By customer number: latest order id. By product number: latest line
+    // number + 1, and totals; an order with several lines of the product
+    // counts once
+    private int[] lastOrderOf = new int[INITIAL];
+    private int[] lastLineOf = new int[INITIAL];
+    private int[] ordersOf = new int[INITIAL];
+    private long[] unitsSold = new long[INITIAL];
+    private long[] revenue = new long[INITIAL];
+
+    // ProductSales Class - how much of one product was sold
+    static final class ProductSales {
+        private final String productId;
+        private final long units;
+        private final long revenueCents;
+        private final int orders;
+
+        ProductSales(String productId, long units, long revenueCents, int orders) {
+            this.productId = productId;
+            this.units = units;
+            this.revenueCents = revenueCents;
+            this.orders = orders;
+        }
+
+        public String getProductId() {
+            return productId;
+        }
+
+        public long getUnits() {
+            return units;
+        }
+
+        public long getRevenueCents() {
+            return revenueCents;
+        }
+
+        // Orders that included the product
+        public int getOrders() {
+            return orders;
+        }
+    }
+
+    // Stores the order and returns it as a ledger entry
+    synchronized Transaction add(String username, long amountCents, long timeMillis, List<OrderLine> orderLines) {
+        if (orders == customer.length) {
+            int n = orders + (orders >> 1);
+            customer = Arrays.copyOf(customer, n);
+            time = Arrays.copyOf(time, n);
+            amount = Arrays.copyOf(amount, n);
+            firstLine = Arrays.copyOf(firstLine, n + 1);
+            previousOfCustomer = Arrays.copyOf(previousOfCustomer, n);
+        }
+        int id = orders + 1;
+        int c = customers.code(username);
+        customer[orders] = c;
+        time[orders] = timeMillis;
+        amount[orders] = amountCents;
+        firstLine[orders] = lines;
+        if (c == lastOrderOf.length)
+            lastOrderOf = Arrays.copyOf(lastOrderOf, c + (c >> 1));
+        previousOfCustomer[orders] = lastOrderOf[c];
+        lastOrderOf[c] = id;
+        for (OrderLine line : orderLines)
+            addLine(id, line);
+        orders++;
+        firstLine[orders] = lines;
+        return new Transaction(username, amountCents, timeMillis, this, id);
+    }
+
+    private void addLine(int orderId, OrderLine line) {
+        if (lines == lineOrder.length) {
+            int n = lines + (lines >> 1);
+            lineOrder = Arrays.copyOf(lineOrder, n);
+            lineProduct = Arrays.copyOf(lineProduct, n);
+            lineQty = Arrays.copyOf(lineQty, n);
+            linePrice = Arrays.copyOf(linePrice, n);
+            previousOfProduct = Arrays.copyOf(previousOfProduct, n);
+        }
+        int p = products.code(line.getProductId());
+        lineOrder[lines] = orderId;
+        lineProduct[lines] = p;
+        lineQty[lines] = line.getQuantity();
+        linePrice[lines] = line.getUnitPriceCents();
+        if (p == lastLineOf.length) {
+            int n = p + (p >> 1);
+            lastLineOf = Arrays.copyOf(lastLineOf, n);
+            ordersOf = Arrays.copyOf(ordersOf, n);
+            unitsSold = Arrays.copyOf(unitsSold, n);
+            revenue = Arrays.copyOf(revenue, n);
+        }
+        // The lines of one order are consecutive, so a repeat of the product in
+        // the same order is always the product's latest line
+        if (lastLineOf[p] == 0 || lineOrder[lastLineOf[p] - 1] != orderId)
+            ordersOf[p]++;
+        previousOfProduct[lines] = lastLineOf[p];
+        lastLineOf[p] = lines + 1;
+        unitsSold[p] += line.getQuantity();
+        revenue[p] += line.getUnitPriceCents() * line.getQuantity();
+        lines++;
+    }
+
+    synchronized int size() {
+        return orders;
+    }
+
+    // The lines of an order; empty for orders recorded before lines were kept
+    synchronized List<OrderLine> lines(int orderId) {
+        int from = firstLine[orderId - 1];
+        int to = firstLine[orderId];
+        if (from == to)
+            return List.of();
+        OrderLine[] out = new OrderLine[to - from];
+        for (int i = from; i < to; i++)
+            out[i - from] = new OrderLine(products.name(lineProduct[i]), lineQty[i], linePrice[i]);
+        return List.of(out);
+    }
+
+    // The customer's orders, oldest first
+    synchronized List<Transaction> ordersOf(String username) {
+        int c = customers.find(username);
+        List<Transaction> out = new ArrayList<>();
+        if (c < 0)
+            return out;
+        for (int id = lastOrderOf[c]; id != 0; id = previousOfCustomer[id - 1])
+            out.add(order(id));
+        Collections.reverse(out);
+        return out;
+    }
+
+    // The orders that included the product, oldest first
+    synchronized List<Transaction> ordersWith(String productId) {
+        int p = products.find(productId);
+        List<Transaction> out = new ArrayList<>();
+        if (p < 0)
+            return out;
+        int previous = 0;
+        for (int line = lastLineOf[p]; line != 0; line = previousOfProduct[line - 1]) {
+            int id = lineOrder[line - 1];
+            if (id != previous)
+                out.add(order(id));
+            previous = id;
+        }
+        Collections.reverse(out);
+        return out;
+    }
+
+    // Totals since the first order, kept up to date as orders are added
+    synchronized ProductSales sales(String productId) {
+        int p = products.find(productId);
+        if (p < 0)
+            return new ProductSales(productId, 0, 0, 0);
+        return new ProductSales(productId, unitsSold[p], revenue[p], ordersOf[p]);
+    }
+
+    // Totals of the orders placed from fromMillis (inclusive) to toMillis
+    // (exclusive). Reads all of the product's own lines: order times need not
+    // increase along the ledger (the wall clock can step back, and data files
+    // are loaded in whatever order they hold), so no line ends the walk early.
+    synchronized ProductSales sales(String productId, long fromMillis, long toMillis) {
+        int p = products.find(productId);
+        if (p < 0)
+            return new ProductSales(productId, 0, 0, 0);
+        long units = 0;
+        long cents = 0;
+        int count = 0;
+        int previous = 0;
+        for (int next = lastLineOf[p]; next != 0; next = previousOfProduct[next - 1]) {
+            int line = next - 1;
+            int id = lineOrder[line];
+            long t = time[id - 1];
+            if (t < fromMillis || t >= toMillis)
+                continue;
+            units += lineQty[line];
+            cents += linePrice[line] * lineQty[line];
+            if (id != previous)
+                count++;
+            previous = id;
+        }
+        return new ProductSales(productId, units, cents, count);
+    }
+
+    private Transaction order(int id) {
+        return new Transaction(customers.name(customer[id - 1]), amount[id - 1], time[id - 1], this, id);
+    }
+
+    // Dictionary Class - numbers strings in the order they are first seen
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+
+        int code(String s) {
+            Integer c = codes.get(s);
+            if (c == null) {
+                c = names.size();
+                codes.put(s, c);
+                names.add(s);
+            }
+            return c;
+        }
+
+        int find(String s) {
+            Integer c = codes.get(s);
+            return c == null ? -1 : c;
+        }
+
+        String name(int code) {
+            return names.get(code);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Product Search Index - inverted index from the lower-cased words of product
+// names to the products containing them. The words are kept sorted, so all
+// words starting with a typed prefix are one contiguous range of the map and a
+// search never looks at products whose names cannot match.
+class ProductSearchIndex {
+    private final TreeMap<String, Postings> words = new TreeMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Products containing one word, in no particular order
+    private static final class Postings {
+        Product[] items = new Product[2];
+        int size;
+
+        void add(Product p) {
+            if (size == items.length)
+                items = Arrays.copyOf(items, size * 2);
+            items[size++] = p;
+        }
+
+        void remove(Product p) {
+            for (int i = 0; i < size; i++) {
+                if (items[i] == p) {
+                    items[i] = items[--size];
+                    items[size] = null;
+                    return;
+                }
+            }
+        }
+    }
+
+    public void add(Product p) {
+        lock.writeLock().lock();
+        try {
+            index(p);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addAll(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            products.forEach(this::index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Product p) {
+        lock.writeLock().lock();
+        try {
+            for (String word : words(p.getName())) {
+                Postings postings = words.get(word);
+                if (postings != null) {
+                    postings.remove(p);
+                    if (postings.size == 0)
+                        words.remove(word);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Up to limit products having, for every word of query, a name word that
+    // starts with it ("lap pro" finds "Laptop Pro 14"). Returns null for a blank
+    // query, meaning no filter.
+    public List<Product> search(String query, int limit) {
+        List<String> terms = words(query);
+        if (terms.isEmpty())
+            return null;
+        List<Product> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            // Walk the term reaching the fewest products; the other terms are
+            // checked against each candidate's name
+            String driver = null;
+            long fewest = Long.MAX_VALUE;
+            for (String t : terms) {
+                long n = count(t, fewest);
+                if (n < fewest) {
+                    fewest = n;
+                    driver = t;
+                }
+            }
+            if (driver == null)
+                return result;
+            Map<String, Postings> range = range(driver);
+            // Only needed when one product can be reached through two words of the range
+            HashSet<Product> seen = range.size() > 1 ? new HashSet<>() : null;
+            for (Postings postings : range.values()) {
+                for (int i = 0; i < postings.size; i++) {
+                    Product p = postings.items[i];
+                    if (terms.size() > 1 && !matchesAll(p.getName(), terms))
+                        continue;
+                    if (seen != null && !seen.add(p))
+                        continue;
+                    result.add(p);
+                    if (result.size() >= limit)
+                        return result;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    // True if p would be returned by search(query, ...), or query is blank
+    public static boolean matches(Product p, String query) {
+        List<String> terms = words(query);
+        return terms.isEmpty() || matchesAll(p.getName(), terms);
+    }
+
+    private Map<String, Postings> range(String prefix) {
+        return words.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    // Products reachable through words starting with prefix, counted only up to cap
+    private long count(String prefix, long cap) {
+        long n = 0;
+        for (Postings postings : range(prefix).values()) {
+            n += postings.size;
+            if (n >= cap)
+                break;
+        }
+        return n;
+    }
+
+    private void index(Product p) {
+        for (String word : words(p.getName()))
+            words.computeIfAbsent(word, w -> new Postings()).add(p);
+    }
+
+    private static boolean matchesAll(String name, List<String> terms) {
+        for (String t : terms)
+            if (!hasWordStartingWith(name, t))
+                return false;
+        return true;
+    }
+
+    // Compares in place, without splitting or lower-casing the name
+    private static boolean hasWordStartingWith(String name, String prefix) {
+        int last = name.length() - prefix.length();
+        for (int i = 0; i <= last; i++) {
+            if ((i == 0 || !Character.isLetterOrDigit(name.charAt(i - 1)))
+                    && name.regionMatches(true, i, prefix, 0, prefix.length()))
+                return true;
+        }
+        return false;
+    }
+
+    // Distinct lower-cased runs of letters and digits
+    private static List<String> words(String text) {
+        List<String> out = new ArrayList<>(4);
+        if (text == null)
+            return out;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                String w = text.substring(start, i).toLowerCase();
+                if (!out.contains(w))
+                    out.add(w);
+                start = -1;
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,262 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// ProductCursor Class - position in one sort order: the sort value of the last
+// product of a page plus its id, which breaks ties. Pages continue strictly
+// after it, so products added or removed elsewhere never shift a page.
+final class ProductCursor implements Comparable<ProductCursor> {
+    final long number;
+    final String text;
+    final String id;
+    // -1 / +1 for bounds that sort before / after every product with the same value
+    final int edge;
+
+    ProductCursor(long number, String text, String id, int edge) {
+        this.number = number;
+        this.text = text;
+        this.id = id;
+        this.edge = edge;
+    }
+
+    @Override
+    public int compareTo(ProductCursor o) {
+        int c = Long.compare(number, o.number);
+        if (c == 0 && (text != null || o.text != null))
+            c = text == null ? -1 : o.text == null ? 1 : text.compareTo(o.text);
+        if (c == 0)
+            c = Integer.compare(edge, o.edge);
+        if (c == 0)
+            c = id.compareTo(o.id);
+        return c;
+    }
+}
+
+// ProductQuery Class - one page request: sort order, page size, where to continue
+// from and optional filters
+class ProductQuery {
+    enum SortKey {
+        ID, NAME, PRICE, STOCK
+    }
+
+    private final SortKey sortKey;
+    private final boolean ascending;
+    private final int pageSize;
+    private ProductCursor after;
+    private long minPriceCents = Long.MIN_VALUE;
+    private long maxPriceCents = Long.MAX_VALUE;
+    private boolean inStockOnly;
+
+    public ProductQuery(SortKey sortKey, boolean ascending, int pageSize) {
+        if (pageSize <= 0)
+            throw new IllegalArgumentException("pageSize must be positive");
+        this.sortKey = sortKey;
+        this.ascending = ascending;
+        this.pageSize = pageSize;
+    }
+
+    // Continue after the page that returned cursor as its next cursor
+    public ProductQuery after(ProductCursor cursor) {
+        this.after = cursor;
+        return this;
+    }
+
+    public ProductQuery priceBetween(long minCents, long maxCents) {
+        this.minPriceCents = minCents;
+        this.maxPriceCents = maxCents;
+        return this;
+    }
+
+    public ProductQuery inStockOnly() {
+        this.inStockOnly = true;
+        return this;
+    }
+
+    public SortKey getSortKey() {
+        return sortKey;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    ProductCursor getAfter() {
+        return after;
+    }
+
+    boolean accepts(Product p) {
+        long price = p.getPriceCents();
+        return price >= minPriceCents && price <= maxPriceCents && (!inStockOnly || p.getStock() > 0);
+    }
+
+    long getMinPriceCents() {
+        return minPriceCents;
+    }
+
+    long getMaxPriceCents() {
+        return maxPriceCents;
+    }
+}
+
+// ProductPage Class - products of one page in sort order, and the cursor for the
+// next page (null once the listing is exhausted)
+class ProductPage {
+    private final List<Product> products;
+    private final ProductCursor nextCursor;
+
+    ProductPage(List<Product> products, ProductCursor nextCursor) {
+        this.products = Collections.unmodifiableList(products);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    public ProductCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
+
+// Product Sort Index - the catalog kept sorted by every sort key, so a page is a
+// walk from the cursor through at most the products it returns or filters out.
+// Price and stock entries are re-keyed when those values change; reads never
+// lock.
+class ProductSortIndex {
+    private final Map<ProductQuery.SortKey, ConcurrentSkipListMap<ProductCursor, Product>> orders =
+            new EnumMap<>(ProductQuery.SortKey.class);
+    // Current price and stock keys of each product, to find the entries to replace
+    private final Map<Product, ProductCursor[]> mutableKeys = new ConcurrentHashMap<>();
+    // Products changed while updates are deferred; null when they are not
+    private Set<Product> stale;
+
+    ProductSortIndex() {
+        for (ProductQuery.SortKey key : ProductQuery.SortKey.values())
+            orders.put(key, new ConcurrentSkipListMap<>());
+    }
+
+    public synchronized void add(Product p) {
+        orders.get(ProductQuery.SortKey.ID).put(keyOf(ProductQuery.SortKey.ID, p), p);
+        orders.get(ProductQuery.SortKey.NAME).put(keyOf(ProductQuery.SortKey.NAME, p), p);
+        putMutable(p);
+    }
+
+    public synchronized void addAll(Collection<Product> products) {
+        products.forEach(this::add);
+    }
+
+    public synchronized void remove(Product p) {
+        orders.get(ProductQuery.SortKey.ID).remove(keyOf(ProductQuery.SortKey.ID, p));
+        orders.get(ProductQuery.SortKey.NAME).remove(keyOf(ProductQuery.SortKey.NAME, p));
+        removeMutable(p);
+    }
+
+    // Re-sorts p after its price or stock changed
+    public synchronized void update(Product p) {
+        if (stale != null)
+            stale.add(p);
+        else if (removeMutable(p))
+            putMutable(p);
+    }
+
+    // Until resumeUpdates, price and stock changes only mark the product, so a
+    // burst of changes to few products re-sorts each of them once instead of
+    // once per change. Pages read meanwhile may be out of order.
+    public synchronized void deferUpdates() {
+        if (stale == null)
+            stale = new HashSet<>();
+    }
+
+    public synchronized void resumeUpdates() {
+        Set<Product> changed = stale;
+        stale = null;
+        if (changed != null)
+            changed.forEach(this::update);
+    }
+
+    public ProductPage page(ProductQuery q) {
+        ProductQuery.SortKey sort = q.getSortKey();
+        NavigableMap<ProductCursor, Product> order = orders.get(sort);
+        if (!q.isAscending())
+            order = order.descendingMap();
+        // Sorted by price, the price range is a contiguous stretch: start at its
+        // near end and stop at its far end
+        ProductCursor start = q.getAfter();
+        if (sort == ProductQuery.SortKey.PRICE) {
+            ProductCursor bound = q.isAscending()
+                    ? new ProductCursor(q.getMinPriceCents(), null, "", -1)
+                    : new ProductCursor(q.getMaxPriceCents(), null, "", 1);
+            boolean beforeBound = start == null
+                    || (q.isAscending() ? start.compareTo(bound) < 0 : start.compareTo(bound) > 0);
+            if (beforeBound)
+                order = order.tailMap(bound, true);
+            else
+                order = order.tailMap(start, false);
+        } else if (start != null) {
+            order = order.tailMap(start, false);
+        }
+        List<Product> out = new ArrayList<>(q.getPageSize());
+        ProductCursor last = null;
+        for (Map.Entry<ProductCursor, Product> e : order.entrySet()) {
+            Product p = e.getValue();
+            if (sort == ProductQuery.SortKey.PRICE && (q.isAscending()
+                    ? e.getKey().number > q.getMaxPriceCents()
+                    : e.getKey().number < q.getMinPriceCents()))
+                return new ProductPage(out, null);
+            if (!q.accepts(p))
+                continue;
+            out.add(p);
+            last = e.getKey();
+            if (out.size() == q.getPageSize())
+                return new ProductPage(out, last);
+        }
+        return new ProductPage(out, null);
+    }
+
+    private void putMutable(Product p) {
+        ProductCursor price = keyOf(ProductQuery.SortKey.PRICE, p);
+        ProductCursor stock = keyOf(ProductQuery.SortKey.STOCK, p);
+        orders.get(ProductQuery.SortKey.PRICE).put(price, p);
+        orders.get(ProductQuery.SortKey.STOCK).put(stock, p);
+        mutableKeys.put(p, new ProductCursor[] { price, stock });
+    }
+
+    private boolean removeMutable(Product p) {
+        ProductCursor[] keys = mutableKeys.remove(p);
+        if (keys == null)
+            return false;
+        orders.get(ProductQuery.SortKey.PRICE).remove(keys[0]);
+        orders.get(ProductQuery.SortKey.STOCK).remove(keys[1]);
+        return true;
+    }
+
+    // Position of p in the given order, by its current values
+    static ProductCursor keyOf(ProductQuery.SortKey sort, Product p) {
+        switch (sort) {
+            case NAME:
+                return new ProductCursor(0, p.getName().toLowerCase(), p.getId(), 0);
+            case PRICE:
+                return new ProductCursor(p.getPriceCents(), null, p.getId(), 0);
+            case STOCK:
+                return new ProductCursor(p.getStock(), null, p.getId(), 0);
+            default:
+                return new ProductCursor(0, null, p.getId(), 0);
+        }
+    }
+}
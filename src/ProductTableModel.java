@@ -0,0 +1,226 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.table.AbstractTableModel;
+
+// Product Table Model - holds references to the catalog's products (never copies
+// of them) and reports changes one row at a time, so a stock change on one
+// product repaints one row in every table that shares the model. The row list
+// only changes in response to notifications, which keeps it consistent with
+// the events the tables have seen even when notifications arrive batched.
+// The catalog is fetched a page at a time as the table scrolls; a model built
+// for a search query holds only the matching products.
+class ProductTableModel extends AbstractTableModel {
+  private static final String[] COLUMNS = { "ID", "Name", "Price", "Stock" };
+  private static final ProductQuery.SortKey[] SORT_KEYS = { ProductQuery.SortKey.ID, ProductQuery.SortKey.NAME,
+      ProductQuery.SortKey.PRICE, ProductQuery.SortKey.STOCK };
+  static final int PAGE_SIZE = 100;
+
+  private final EcommerceSystem system;
+  // Search the rows came from, or null for the paged catalog
+  private final String query;
+  private final int limit;
+  private final ArrayList<Product> rows = new ArrayList<>();
+  // Row of each product in rows
+  private final Map<Product, Integer> rowOf = new HashMap<>();
+  private int sortColumn;
+  private boolean ascending = true;
+  // Where the next catalog page starts, or null once the catalog is fully loaded
+  private ProductCursor next;
+
+  ProductTableModel(EcommerceSystem system) {
+    this(system, null, 0);
+  }
+
+  // Up to limit products matching query
+  ProductTableModel(EcommerceSystem system, String query, int limit) {
+    this.system = system;
+    this.query = query;
+    this.limit = limit;
+    reload(PAGE_SIZE);
+  }
+
+  Product getProductAt(int row) {
+    return rows.get(row);
+  }
+
+  boolean hasMore() {
+    return next != null;
+  }
+
+  // Appends the next catalog page; called as the table scrolls towards the end
+  void loadMore() {
+    if (next == null)
+      return;
+    int first = rows.size();
+    // Continue from the last row as it sorts now, not from where its page ended:
+    // rows move as their price or stock changes
+    ProductCursor after = first == 0 ? next : ProductSortIndex.keyOf(SORT_KEYS[sortColumn], rows.get(first - 1));
+    appendPage(new ProductQuery(SORT_KEYS[sortColumn], ascending, PAGE_SIZE).after(after));
+    if (rows.size() > first)
+      fireTableRowsInserted(first, rows.size() - 1);
+  }
+
+  // Reloads as many rows as were loaded before, for when the catalog may have
+  // changed in ways not reported here
+  void refresh() {
+    reload(Math.max(PAGE_SIZE, rows.size()));
+    fireTableDataChanged();
+  }
+
+  // Clicking the same column again flips the direction
+  void toggleSort(int column) {
+    if (column == sortColumn) {
+      ascending = !ascending;
+    } else {
+      sortColumn = column;
+      ascending = true;
+    }
+    if (query == null) {
+      reload(PAGE_SIZE);
+    } else {
+      rows.sort(order());
+      renumber(0);
+    }
+    fireTableStructureChanged();
+  }
+
+  void productAdded(Product p) {
+    if (rowOf.containsKey(p) || (query != null && !ProductSearchIndex.matches(p, query)))
+      return;
+    int row = rows.size();
+    if (query == null) {
+      row = Collections.binarySearch(rows, p, order());
+      row = row < 0 ? -row - 1 : row;
+      // Past the loaded pages it arrives with a later page instead
+      if (row == rows.size() && next != null)
+        return;
+    }
+    rows.add(row, p);
+    renumber(row);
+    fireTableRowsInserted(row, row);
+  }
+
+  // Stock or price of the product changed; under a price or stock sort the row
+  // moves to its new place, or leaves or enters the loaded pages
+  void productUpdated(Product p) {
+    Integer row = rowOf.get(p);
+    ProductQuery.SortKey key = SORT_KEYS[sortColumn];
+    if (key != ProductQuery.SortKey.PRICE && key != ProductQuery.SortKey.STOCK) {
+      if (row != null)
+        fireTableRowsUpdated(row, row);
+      return;
+    }
+    if (row == null) {
+      if (query == null)
+        productAdded(p);
+      return;
+    }
+    // The last loaded row is where the next page continues from, so it must not
+    // move forward past products that are not loaded yet: it leaves instead
+    Comparator<Product> order = order();
+    boolean last = row == rows.size() - 1;
+    if ((row == 0 || order.compare(rows.get(row - 1), p) <= 0)
+        && (last ? next == null : order.compare(p, rows.get(row + 1)) <= 0)) {
+      fireTableRowsUpdated(row, row);
+      return;
+    }
+    productRemoved(p);
+    productAdded(p);
+  }
+
+  void productRemoved(Product p) {
+    Integer row = rowOf.remove(p);
+    if (row == null)
+      return;
+    rows.remove((int) row);
+    renumber(row);
+    fireTableRowsDeleted(row, row);
+  }
+
+  @Override
+  public int getRowCount() {
+    return rows.size();
+  }
+
+  @Override
+  public int getColumnCount() {
+    return COLUMNS.length;
+  }
+
+  @Override
+  public String getColumnName(int column) {
+    if (column != sortColumn)
+      return COLUMNS[column];
+    return COLUMNS[column] + (ascending ? " ▲" : " ▼");
+  }
+
+  @Override
+  public Object getValueAt(int row, int column) {
+    Product p = rows.get(row);
+    switch (column) {
+      case 0:
+        return p.getId();
+      case 1:
+        return p.getName();
+      case 2:
+        return Money.format(p.getPriceCents());
+      default:
+        return p.getStock();
+    }
+  }
+
+  private void reload(int count) {
+    rows.clear();
+    rowOf.clear();
+    next = null;
+    List<Product> matches = query == null ? null : system.searchProducts(query, limit);
+    if (matches == null) {
+      appendPage(new ProductQuery(SORT_KEYS[sortColumn], ascending, count));
+      return;
+    }
+    rows.addAll(matches);
+    if (sortColumn != 0 || !ascending)
+      rows.sort(order());
+    renumber(0);
+  }
+
+  private void appendPage(ProductQuery page) {
+    ProductPage result = system.listProducts(page);
+    int first = rows.size();
+    // A product whose sort key changed after its page was loaded can come again
+    for (Product p : result.getProducts())
+      if (!rowOf.containsKey(p))
+        rows.add(p);
+    renumber(first);
+    next = result.getNextCursor();
+  }
+
+  private void renumber(int from) {
+    for (int i = from; i < rows.size(); i++)
+      rowOf.put(rows.get(i), i);
+  }
+
+  // The same order as the catalog listing for the current sort column
+  private Comparator<Product> order() {
+    Comparator<Product> c;
+    switch (SORT_KEYS[sortColumn]) {
+      case NAME:
+        c = Comparator.comparing(p -> p.getName().toLowerCase());
+        break;
+      case PRICE:
+        c = Comparator.comparingLong(Product::getPriceCents);
+        break;
+      case STOCK:
+        c = Comparator.comparingInt(Product::getStock);
+        break;
+      default:
+        c = (a, b) -> 0;
+    }
+    c = c.thenComparing(Product::getId);
+    return ascending ? c : c.reversed();
+  }
+}
@@ -0,0 +1,193 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Space Saving - approximate heaviest keys of a weighted stream in a fixed
+// number of counters (Metwally, Agrawal and El Abbadi). A key that is not
+// counted takes over the smallest counter and inherits its count as its error,
+// so a reported count is never too low and at most total / capacity too high,
+// and every key heavier than that is guaranteed to be reported.
+//
+// The counters form a min-heap on their counts, so an update moves one counter
+// at most log2(capacity) levels whatever the length of the stream. A counter
+// keeps its number while it moves, so the key lookup is the only map access.
+class SpaceSaving {
+    private final String[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    // Counter numbers in heap order, and the heap position of each counter
+    private final int[] heap;
+    private final int[] position;
+    private final Map<String, Integer> counters;
+    // Boxed counter numbers, so taking over a counter allocates nothing
+    private final Integer[] ids;
+    private int size;
+    private long total;
+
+    // Entry Class - one counted key; the true count lies in [count - error, count]
+    static final class Entry {
+        private final String key;
+        private final long count;
+        private final long error;
+
+        Entry(String key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+    }
+
+    SpaceSaving(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive");
+        keys = new String[capacity];
+        counts = new long[capacity];
+        errors = new long[capacity];
+        heap = new int[capacity];
+        position = new int[capacity];
+        counters = new HashMap<>(capacity * 2);
+        ids = new Integer[capacity];
+        for (int i = 0; i < capacity; i++)
+            ids[i] = i;
+    }
+
+    void add(String key, long weight) {
+        if (weight <= 0)
+            return;
+        total += weight;
+        Integer c = counters.get(key);
+        if (c != null) {
+            counts[c] += weight;
+            siftDown(position[c]);
+        } else if (size < keys.length) {
+            insert(key, weight, 0);
+        } else {
+            int min = heap[0];
+            counters.remove(keys[min]);
+            keys[min] = key;
+            errors[min] = counts[min];
+            counts[min] += weight;
+            counters.put(key, ids[min]);
+            siftDown(0);
+        }
+    }
+
+    private void insert(String key, long count, long error) {
+        int c = size++;
+        keys[c] = key;
+        counts[c] = count;
+        errors[c] = error;
+        heap[c] = c;
+        position[c] = c;
+        counters.put(key, ids[c]);
+        siftUp(c);
+    }
+
+    // Smallest count, or 0 while some counter is unused
+    private long min() {
+        return size < keys.length ? 0 : counts[heap[0]];
+    }
+
+    // One summary of all the given ones, as if their streams had been added to
+    // a single summary of the given capacity. A key a part does not count gets
+    // that part's smallest count added to both its count and its error, which
+    // keeps the bounds.
+    static SpaceSaving merge(List<SpaceSaving> parts, int capacity) {
+        long mins = 0;
+        int entries = 0;
+        for (SpaceSaving part : parts) {
+            mins += part.min();
+            entries += part.size;
+        }
+        Map<String, long[]> merged = new HashMap<>(entries * 2);
+        SpaceSaving out = new SpaceSaving(capacity);
+        for (SpaceSaving part : parts) {
+            long min = part.min();
+            for (int i = 0; i < part.size; i++) {
+                long[] c = merged.get(part.keys[i]);
+                if (c == null) {
+                    c = new long[] { mins, mins };
+                    merged.put(part.keys[i], c);
+                }
+                c[0] += part.counts[i] - min;
+                c[1] += part.errors[i] - min;
+            }
+            out.total += part.total;
+        }
+        List<Map.Entry<String, long[]>> byCount = new ArrayList<>(merged.entrySet());
+        byCount.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+        for (Map.Entry<String, long[]> e : byCount.subList(0, Math.min(capacity, byCount.size())))
+            out.insert(e.getKey(), e.getValue()[0], e.getValue()[1]);
+        return out;
+    }
+
+    // The n heaviest keys, heaviest first
+    List<Entry> top(int n) {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(counts[b], counts[a]));
+        List<Entry> out = new ArrayList<>(Math.min(n, size));
+        for (int i = 0; i < Math.min(n, size); i++)
+            out.add(new Entry(keys[order[i]], counts[order[i]], errors[order[i]]));
+        return out;
+    }
+
+    // Sum of every weight added
+    long total() {
+        return total;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0, size, null);
+        counters.clear();
+        size = 0;
+        total = 0;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (counts[heap[parent]] <= counts[heap[i]])
+                break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]])
+                child++;
+            if (counts[heap[i]] <= counts[heap[child]])
+                break;
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int c = heap[a];
+        heap[a] = heap[b];
+        heap[b] = c;
+        position[heap[a]] = a;
+        position[heap[b]] = b;
+    }
+}
@@ -0,0 +1,187 @@
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.function.IntBinaryOperator;
+import javax.swing.table.AbstractTableModel;
+
+// Transaction Table Model - pages over a ledger snapshot and formats only the
+// cells the table actually asks for. Sorting builds an int permutation of the
+// ledger once per sort change; the natural order (by date) needs none at all.
+// The ledger only grows, so a refresh sorts just the new entries and merges
+// them into the permutation instead of sorting everything again.
+class TransactionTableModel extends AbstractTableModel {
+  static final int COL_USER = 0;
+  static final int COL_AMOUNT = 1;
+  static final int COL_DATE = 2;
+  private static final String[] COLUMNS = { "User", "Amount", "Date" };
+  private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+      .withZone(ZoneId.systemDefault());
+
+  private final EcommerceSystem system;
+  private final int pageSize;
+  private List<Transaction> ledger = List.of();
+  private int page;
+  private int sortColumn = COL_DATE;
+  private boolean ascending = true;
+  private int[] order;
+  // Formatted cells of the current page, filled in as rows are painted
+  private String[][] pageCells;
+
+  TransactionTableModel(EcommerceSystem system, int pageSize) {
+    this.system = system;
+    this.pageSize = pageSize;
+    this.pageCells = new String[pageSize][];
+  }
+
+  // Picks up transactions recorded since the last refresh
+  void refresh() {
+    ledger = system.getTransactions();
+    if (order != null)
+      order = order.length <= ledger.size() ? withAppended(order) : null;
+    page = Math.min(page, getPageCount() - 1);
+    invalidatePage();
+  }
+
+  // Clicking the same column again flips the direction
+  void toggleSort(int column) {
+    if (column == sortColumn) {
+      ascending = !ascending;
+    } else {
+      sortColumn = column;
+      ascending = true;
+    }
+    order = null;
+    page = 0;
+    invalidatePage();
+    fireTableStructureChanged();
+  }
+
+  void setPage(int page) {
+    this.page = Math.max(0, Math.min(page, getPageCount() - 1));
+    invalidatePage();
+  }
+
+  int getPage() {
+    return page;
+  }
+
+  int getPageCount() {
+    return Math.max(1, (ledger.size() + pageSize - 1) / pageSize);
+  }
+
+  int getLedgerSize() {
+    return ledger.size();
+  }
+
+  @Override
+  public int getRowCount() {
+    return Math.max(0, Math.min(pageSize, ledger.size() - page * pageSize));
+  }
+
+  @Override
+  public int getColumnCount() {
+    return COLUMNS.length;
+  }
+
+  @Override
+  public String getColumnName(int column) {
+    if (column != sortColumn)
+      return COLUMNS[column];
+    return COLUMNS[column] + (ascending ? " ▲" : " ▼");
+  }
+
+  @Override
+  public Object getValueAt(int row, int column) {
+    String[] cells = pageCells[row];
+    if (cells == null) {
+      Transaction t = ledger.get(ledgerIndex(page * pageSize + row));
+      cells = new String[] { t.getUsername(), "$" + Money.format(t.getAmountCents()),
+          DATE_FORMAT.format(Instant.ofEpochMilli(t.getTimeMillis())) };
+      pageCells[row] = cells;
+    }
+    return cells[column];
+  }
+
+  private void invalidatePage() {
+    java.util.Arrays.fill(pageCells, null);
+    fireTableDataChanged();
+  }
+
+  private int ledgerIndex(int position) {
+    if (sortColumn == COL_DATE)
+      return ascending ? position : ledger.size() - 1 - position;
+    if (order == null)
+      order = sortedOrder();
+    return order[ascending ? position : order.length - 1 - position];
+  }
+
+  private int[] sortedOrder() {
+    int[] idx = new int[ledger.size()];
+    for (int i = 0; i < idx.length; i++)
+      idx[i] = i;
+    mergeSort(idx, new int[idx.length], 0, idx.length, comparator());
+    return idx;
+  }
+
+  // The sorted permutation extended with the entries appended since it was
+  // built: they are sorted on their own, each one's place is found by binary
+  // search, and the runs in between are copied, so only the new entries are
+  // compared
+  private int[] withAppended(int[] sorted) {
+    int n = ledger.size();
+    if (sorted.length == n)
+      return sorted;
+    IntBinaryOperator cmp = comparator();
+    int[] added = new int[n - sorted.length];
+    for (int i = 0; i < added.length; i++)
+      added[i] = sorted.length + i;
+    mergeSort(added, new int[added.length], 0, added.length, cmp);
+    int[] out = new int[n];
+    int from = 0;
+    int k = 0;
+    for (int entry : added) {
+      // After every older entry that sorts the same, as a stable sort would
+      int lo = from, hi = sorted.length;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (cmp.applyAsInt(sorted[mid], entry) <= 0)
+          lo = mid + 1;
+        else
+          hi = mid;
+      }
+      System.arraycopy(sorted, from, out, k, lo - from);
+      k += lo - from;
+      out[k++] = entry;
+      from = lo;
+    }
+    System.arraycopy(sorted, from, out, k, sorted.length - from);
+    return out;
+  }
+
+  private IntBinaryOperator comparator() {
+    List<Transaction> l = ledger;
+    if (sortColumn == COL_USER)
+      return (a, b) -> l.get(a).getUsername().compareTo(l.get(b).getUsername());
+    return (a, b) -> Long.compare(l.get(a).getAmountCents(), l.get(b).getAmountCents());
+  }
+
+  // Stable sort of primitive indexes, so ties keep ledger (date) order
+  private static void mergeSort(int[] a, int[] tmp, int from, int to, IntBinaryOperator cmp) {
+    if (to - from < 2)
+      return;
+    int mid = (from + to) >>> 1;
+    mergeSort(a, tmp, from, mid, cmp);
+    mergeSort(a, tmp, mid, to, cmp);
+    if (cmp.applyAsInt(a[mid - 1], a[mid]) <= 0)
+      return;
+    System.arraycopy(a, from, tmp, from, to - from);
+    int i = from, j = mid, k = from;
+    while (i < mid && j < to)
+      a[k++] = cmp.applyAsInt(tmp[j], tmp[i]) < 0 ? tmp[j++] : tmp[i++];
+    while (i < mid)
+      a[k++] = tmp[i++];
+    while (j < to)
+      a[k++] = tmp[j++];
+  }
+}
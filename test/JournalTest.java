@@ -0,0 +1,219 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Journal Test - records written by Journal come back field for field from
+// Journal.read, and lastSnapshot finds the last "S" record wherever its
+// 64 KiB chunks split the file
+class JournalTest {
+    private static final int CHUNK = 1 << 16;
+
+    @TempDir
+    File dir;
+
+    // Handler Class - every record read, as its type followed by its fields;
+    // record times are kept apart since Journal stamps them itself
+    private static final class Recorder implements Journal.Handler {
+        final List<List<Object>> records = new ArrayList<>();
+        final List<Long> times = new ArrayList<>();
+        long snapshotOffset = -1;
+
+        @Override
+        public void baseline(long time, long ledgerSize, long revenueCents) {
+            add(time, "B", ledgerSize, revenueCents);
+        }
+
+        @Override
+        public void productAdded(long time, String id, String name, long priceCents, int stock) {
+            add(time, "P", id, name, priceCents, stock);
+        }
+
+        @Override
+        public void restocked(long time, String id, int qty) {
+            add(time, "R", id, qty);
+        }
+
+        @Override
+        public void repriced(long time, String id, long priceCents) {
+            add(time, "C", id, priceCents);
+        }
+
+        @Override
+        public void productRemoved(long time, String id) {
+            add(time, "X", id);
+        }
+
+        @Override
+        public void order(long time, String username, long amountCents, List<OrderLine> lines) {
+            add(time, "O", username, amountCents, fields(lines));
+        }
+
+        @Override
+        public void snapshotSaved(long time, long offset) {
+            snapshotOffset = offset;
+            add(time, "S");
+        }
+
+        private void add(long time, Object... fields) {
+            times.add(time);
+            records.add(List.of(fields));
+        }
+    }
+
+    private static List<List<Object>> fields(List<OrderLine> lines) {
+        List<List<Object>> out = new ArrayList<>();
+        for (OrderLine line : lines)
+            out.add(List.of(line.getProductId(), line.getQuantity(), line.getUnitPriceCents()));
+        return out;
+    }
+
+    @Test
+    void readsBackEveryRecordType() throws IOException {
+        roundTrip("O|1700000000000|12.50|P1:1:12.");
+    }
+
+    @Test
+    void skipsTruncatedLastLineLongerThanTheBuffer() throws IOException {
+        roundTrip("P|1700000000000|P9|1.00|1|" + "y".repeat(3 * CHUNK));
+    }
+
+    private void roundTrip(String truncatedTail) throws IOException {
+        File file = new File(dir, Journal.FILE_NAME);
+        List<List<Object>> expected = new ArrayList<>();
+        OrderStore store = new OrderStore();
+        String longName = "Lamp " + "x".repeat(CHUNK + 100) + " é";
+        List<OrderLine> manyLines = new ArrayList<>();
+        for (int i = 0; i < 6000; i++)
+            manyLines.add(new OrderLine("P" + i, 1 + i % 3, i * 100L + i % 100));
+
+        long before = System.currentTimeMillis();
+        Journal j = new Journal(file);
+        assertTrue(j.isNew());
+        j.baseline(7, -1234, List.of(new Product("P1", "Café ☕ 日本", 1000, 5), new Product("Ü2", "Plain", 5, 0)));
+        expected.add(List.of("B", 7L, -1234L));
+        expected.add(List.of("P", "P1", "Café ☕ 日本", 1000L, 5));
+        expected.add(List.of("P", "Ü2", "Plain", 5L, 0));
+        j.productAdded(new Product("P3", longName, 2500, 1_000_000));
+        expected.add(List.of("P", "P3", longName, 2500L, 1_000_000));
+        j.restocked("P1", 12);
+        expected.add(List.of("R", "P1", 12));
+        j.restocked("P1", -2);
+        expected.add(List.of("R", "P1", -2));
+        j.repriced("P1", 0);
+        expected.add(List.of("C", "P1", 0L));
+        j.repriced("Ü2", -50);
+        expected.add(List.of("C", "Ü2", -50L));
+        j.repriced("P3", 4200);
+        expected.add(List.of("C", "P3", 4200L));
+        j.productRemoved("Ü2");
+        expected.add(List.of("X", "Ü2"));
+        Transaction[] orders = {
+            store.add("zoë", -999, 1_700_000_000_000L, List.of(new OrderLine("P1", 2, 1000), new OrderLine("Ü2", 1, 5))),
+            store.add("bob", 0, 1_700_000_000_001L, List.of()),
+            store.add("alice", 100, 1_699_999_999_999L, manyLines),
+            store.add("zoë", 7, 1_700_000_000_002L, List.of(new OrderLine("P1", 1, 7))),
+        };
+        for (Transaction txn : orders) {
+            j.order(txn);
+            expected.add(List.of("O", txn.getUsername(), txn.getAmountCents(), fields(txn.getLines())));
+        }
+        j.snapshotSaved();
+        expected.add(List.of("S"));
+        j.close();
+        long after = System.currentTimeMillis();
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(truncatedTail.getBytes(StandardCharsets.UTF_8));
+        }
+
+        Recorder recorder = new Recorder();
+        assertEquals(expected.size(), Journal.read(file, recorder));
+        assertEquals(expected.size(), recorder.records.size());
+        for (int i = 0; i < expected.size(); i++)
+            assertEquals(expected.get(i), recorder.records.get(i), "record " + i);
+        // Orders keep their own time, every other record is stamped when written
+        int order = 0;
+        for (int i = 0; i < expected.size(); i++) {
+            long time = recorder.times.get(i);
+            if (expected.get(i).get(0).equals("O"))
+                assertEquals(orders[order++].getTimeMillis(), time, "record " + i);
+            else
+                assertTrue(time >= before && time <= after, "record " + i + " time " + time);
+        }
+
+        assertEquals(Journal.lastSnapshot(file), recorder.snapshotOffset);
+        try (RandomAccessFile f = new RandomAccessFile(file, "r")) {
+            f.seek(recorder.snapshotOffset - 1);
+            assertEquals('\n', f.read());
+            assertEquals('S', f.read());
+            assertEquals('|', f.read());
+        }
+    }
+
+    // Moves an "S" record across the point where lastSnapshot's first chunk
+    // starts, for files of one to three chunks
+    @Test
+    void lastSnapshotAcrossChunkBoundary() throws IOException {
+        File file = new File(dir, "boundary.log");
+        for (int length : new int[] { CHUNK + 10, 2 * CHUNK + 50, 3 * CHUNK }) {
+            for (int shift = -3; shift <= 3; shift++) {
+                byte[] bytes = new byte[length];
+                fill(bytes, 0, length);
+                int s = length - CHUNK + shift;
+                bytes[s - 1] = '\n';
+                bytes[s] = 'S';
+                bytes[s + 1] = '|';
+                Files.write(file.toPath(), bytes);
+                assertEquals(s, lastLineStartingWithS(bytes));
+                assertEquals(s, Journal.lastSnapshot(file), "length " + length + " shift " + shift);
+            }
+        }
+    }
+
+    // An 'S' that is not at a line start, first in the chunk read last, is not
+    // taken for a record
+    @Test
+    void lastSnapshotSkipsMidLineSAtChunkStart() throws IOException {
+        File file = new File(dir, "decoy.log");
+        byte[] bytes = new byte[2 * CHUNK + 50];
+        fill(bytes, 0, bytes.length);
+        bytes[9] = '\n';
+        bytes[10] = 'S';
+        bytes[11] = '|';
+        int decoy = bytes.length - CHUNK;
+        bytes[decoy - 1] = 'x';
+        bytes[decoy] = 'S';
+        Files.write(file.toPath(), bytes);
+        assertEquals(10, Journal.lastSnapshot(file));
+
+        Files.write(file.toPath(), "S|1\n".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(0, Journal.lastSnapshot(file));
+        byte[] none = new byte[3 * CHUNK];
+        fill(none, 0, none.length);
+        Files.write(file.toPath(), none);
+        assertEquals(-1, Journal.lastSnapshot(file));
+    }
+
+    // Lines of "R|1|P1|1" with no 'S' at a line start
+    private static void fill(byte[] bytes, int from, int to) {
+        byte[] line = "R|1|P1|1\n".getBytes(StandardCharsets.US_ASCII);
+        for (int i = from; i < to; i++)
+            bytes[i] = line[(i - from) % line.length];
+    }
+
+    private static long lastLineStartingWithS(byte[] bytes) {
+        for (int i = bytes.length - 1; i >= 0; i--)
+            if (bytes[i] == 'S' && (i == 0 || bytes[i - 1] == '\n'))
+                return i;
+        return -1;
+    }
+}